@@ -33,6 +33,7 @@ public final class Global {
     public enum LOGGING_VALUES {
         ;
         public static final String UNKNOWN_USER_STRING = "Unknown";
+        public static final String SCHEDULER_USER_STRING = "Scheduler";
     }
 
     public enum EMPLOYEE_DEFAULT_VALUES {
@@ -66,6 +67,18 @@ public final class Global {
         public static final String EMAIL_ROLE_TEXT = "mail";
     }
 
+    public enum CLASSIFICATION_RULE {
+        ;
+        // rule types
+        public static final int NAME_CONTAINS = 0;
+        public static final int NAME_PATTERN = 1;
+        public static final int DN_CONTAINS = 2;
+        public static final int GROUP_TYPE = 3; // ==> Global.ADGroupType
+        public static final int GROUP_AREA = 4; // ==> Global.ADGroupArea
+        // the target of a rule is a role resource (==> Global.ROLE_RESOURCE) or the admin flag
+        public static final int ADMIN_TARGET = -1;
+    }
+
     public enum ADAttributes {
         ;
         public static final String GROUP_TYPE = "groupType";
@@ -73,6 +86,55 @@ public final class Global {
         public static final String DESCRIPTION = "description";
         public static final String ACCOUNT_EXPIRES = "accountExpires";
         public static final String SID = "objectSid";
+        public static final String LOGON_NAME = "sAMAccountName";
+        public static final String DISTINGUISHED_NAME = "distinguishedName";
+        public static final String COMMON_NAME = "cn";
+        public static final String FIRST_NAME = "givenName";
+        public static final String LAST_NAME = "sn";
+        public static final String DEPARTMENT = "department";
+        public static final String EMAIL = "mail";
+        public static final String PHONE_NUMBER = "telephoneNumber";
+        public static final String MOBILE_PHONE = "mobile";
+        public static final String USER_ACCOUNT_CONTROL = "userAccountControl";
+        public static final String CREATION_TIME = "whenCreated";
+        public static final String MEMBER = "member";
+        public static final String USN_CHANGED = "uSNChanged";
+        public static final String HIGHEST_COMMITTED_USN = "highestCommittedUSN";
+        public static final String DEFAULT_NAMING_CONTEXT = "defaultNamingContext";
+    }
+
+    public enum LDAP_QUERY {
+        ;
+        public static final int DEFAULT_PAGE_SIZE = 500;
+        public static final int TIME_LIMIT_MILLIS = 60000;
+        public static final String USER_FILTER = "(&(objectCategory=person)(objectClass=user)" +
+                "(|(userAccountControl=512)(userAccountControl=66048)))";
+        public static final String GROUP_FILTER = "(objectClass=group)";
+        // the object category is removed from tombstones
+        public static final String DELETED_USER_FILTER = "(&(isDeleted=TRUE)(objectClass=user))";
+        public static final String DELETED_GROUP_FILTER = "(&(isDeleted=TRUE)(objectClass=group))";
+        public static final String DELETED_OBJECTS_CONTAINER = "CN=Deleted Objects,";
+        public static final String SHOW_DELETED_CONTROL_OID = "1.2.840.113556.1.4.417";
+    }
+
+    public enum JOB_TYPE {
+        ;
+        public static final String UPDATE_PERSONS_FROM_AD = "UpdatePersonsFromAD";
+        public static final String UPDATE_USERS_FROM_AD = "UpdateUsersFromAD";
+        public static final String UPDATE_GROUPS_FROM_AD = "UpdateGroupsFromAD";
+        public static final String UPDATE_ORG_ROLES_FROM_PERSONS = "UpdateOrgRolesFromPersons";
+        public static final String UPDATE_ROLES_FROM_GROUPS = "UpdateRolesFromGroups";
+        public static final String ASSIGN_PERSONS_TO_ROLES = "AssignPersonsToRoles";
+        public static final String SCHEDULED_SYNC = "ScheduledSync";
+    }
+
+    public enum JOB_STATE {
+        ;
+        public static final int QUEUED = 0;
+        public static final int RUNNING = 1;
+        public static final int SUCCEEDED = 2;
+        public static final int FAILED = 3;
+        public static final int CANCELLED = 4;
     }
 
     public enum ADGroupArea {
@@ -1,6 +1,11 @@
 package de.hirola.adroles.data;
 
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
 
 /**
  * Copyright 2022 by Michael Schmidt, Hirola Consulting
@@ -13,9 +18,12 @@ import javax.persistence.*;
  */
 @MappedSuperclass
 public abstract class AbstractEntity {
+    public static final int SEARCH_TEXT_LENGTH = 2048;
+    public static final String SEARCH_TEXT_SEPARATOR = "|";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "pooled-sequence")
+    @GenericGenerator(name = "pooled-sequence", strategy = "de.hirola.adroles.data.PooledSequenceGenerator")
     private Integer id;
 
     public Integer getId() {
@@ -26,6 +34,25 @@ public abstract class AbstractEntity {
         this.id = id;
     }
 
+    /**
+     * Join the searchable values in lower case, so the search compares a single column.
+     * The separator prevents matches across two values.
+     *
+     * @param values searchable values of the entity
+     * @return the text for the search column
+     */
+    protected static String toSearchText(String... values) {
+        StringJoiner joiner = new StringJoiner(SEARCH_TEXT_SEPARATOR);
+        for (String value : values) {
+            joiner.add(Objects.requireNonNullElse(value, ""));
+        }
+        String searchText = joiner.toString().toLowerCase(Locale.ROOT);
+        if (searchText.length() > SEARCH_TEXT_LENGTH) {
+            return searchText.substring(0, SEARCH_TEXT_LENGTH);
+        }
+        return searchText;
+    }
+
     @Override
     public int hashCode() {
         if (id != null) {
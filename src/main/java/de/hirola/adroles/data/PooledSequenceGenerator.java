@@ -0,0 +1,43 @@
+package de.hirola.adroles.data;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Generates the ids of an entity from its own sequence (<i>table name</i>_seq).
+ * One call of the sequence reserves a block of ids (pooled optimizer), so the inserts of an import
+ * need (almost) no round trip for the ids and can be sent in JDBC batches.
+ * The size of the block is set with <i>adroles.ids.allocationSize</i>, the increment of the sequences
+ * is set to the same value by the migrations.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String ALLOCATION_SIZE_SETTING = "adroles.ids.allocationSize";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String SEQUENCE_SUFFIX = "_seq";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configurationService = serviceRegistry.getService(ConfigurationService.class);
+        int allocationSize = configurationService.getSetting(ALLOCATION_SIZE_SETTING,
+                StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        if (allocationSize < 1) {
+            throw new MappingException("The setting \"" + ALLOCATION_SIZE_SETTING + "\" must be at least 1.");
+        }
+        params.setProperty(SEQUENCE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE) + SEQUENCE_SUFFIX);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        super.configure(type, params, serviceRegistry);
+    }
+}
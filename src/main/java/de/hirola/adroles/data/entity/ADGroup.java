@@ -17,6 +17,12 @@ import java.util.*;
  */
 
 @Entity
+// the schema is created by the migrations ==> db/migration
+@Table(indexes = {
+        @Index(name = "uk_adgroup_objectsid", columnList = "objectsid", unique = true),
+        @Index(name = "idx_adgroup_name", columnList = "name")
+})
+@NamedEntityGraph(name = "ADGroup.roles", attributeNodes = @NamedAttributeNode("roles"))
 public class ADGroup extends AbstractEntity implements Comparable<ADGroup> {
     @NotEmpty
     private String name;
@@ -28,8 +34,29 @@ public class ADGroup extends AbstractEntity implements Comparable<ADGroup> {
     private int groupArea; // local, global, universal ==> Global.ADGroupArea
     private int groupType; // security, distribution ==> Global.ADGroupType
     private boolean isAdminGroup;
-    @ManyToMany(mappedBy = "adGroups", cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @Column(length = SEARCH_TEXT_LENGTH)
+    private String searchText; // maintained on write, used by the search
+    @ManyToMany(mappedBy = "adGroups", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     private Set<Role> roles = new LinkedHashSet<>();
+    // direct members, written by the import
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "adgroup_member",
+            joinColumns = @JoinColumn(name = "adgroup_id"),
+            inverseJoinColumns = @JoinColumn(name = "aduser_id"))
+    private Set<ADUser> members = new LinkedHashSet<>();
+    // direct member groups, written by the import
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "adgroup_nesting",
+            joinColumns = @JoinColumn(name = "adgroup_id"),
+            inverseJoinColumns = @JoinColumn(name = "member_adgroup_id"))
+    private Set<ADGroup> memberGroups = new LinkedHashSet<>();
+    // transitive closure of the member groups (including this group)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "adgroup_closure",
+            joinColumns = @JoinColumn(name = "adgroup_id"),
+            inverseJoinColumns = @JoinColumn(name = "nested_adgroup_id"),
+            indexes = @Index(name = "idx_adgroup_closure_nested", columnList = "nested_adgroup_id"))
+    private Set<ADGroup> nestedGroups = new LinkedHashSet<>();
 
     public String getName() {
         return name;
@@ -116,6 +143,24 @@ public class ADGroup extends AbstractEntity implements Comparable<ADGroup> {
         roles.clear();
     }
 
+    public Set<ADUser> getMembers() {
+        return members;
+    }
+
+    public Set<ADGroup> getMemberGroups() {
+        return memberGroups;
+    }
+
+    public Set<ADGroup> getNestedGroups() {
+        return nestedGroups;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateSearchText() {
+        searchText = toSearchText(getName(), getDescription(), getDistinguishedName());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -23,6 +23,13 @@ import java.util.UUID;
  */
 
 @Entity
+// the schema is created by the migrations ==> db/migration
+@Table(indexes = {
+        @Index(name = "uk_aduser_objectsid", columnList = "objectsid", unique = true),
+        @Index(name = "idx_aduser_logon_name", columnList = "logon_name"),
+        @Index(name = "idx_aduser_person", columnList = "person_id")
+})
+@NamedEntityGraph(name = "ADUser.roles", attributeNodes = @NamedAttributeNode("roles"))
 public class ADUser extends AbstractEntity implements Comparable<ADUser> {
     @NotEmpty
     private String logonName;
@@ -37,13 +44,18 @@ public class ADUser extends AbstractEntity implements Comparable<ADUser> {
     private boolean isAdminAccount;
 
     private boolean isServiceAccount;
+    @Column(length = SEARCH_TEXT_LENGTH)
+    private String searchText; // maintained on write, used by the search
     @ManyToOne
     @JoinColumn(name = "person_id")
     private Person person;
 
-    @ManyToMany(mappedBy = "adUsers", cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "adUsers", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     private Set<Role> roles = new LinkedHashSet<>();
 
+    @ManyToMany(mappedBy = "members", fetch = FetchType.LAZY)
+    private Set<ADGroup> adGroups = new LinkedHashSet<>();
+
     public String getLogonName() {
         return logonName;
     }
@@ -144,6 +156,17 @@ public class ADUser extends AbstractEntity implements Comparable<ADUser> {
     public void removeAllRoles() {
         roles.clear();
     }
+
+    public Set<ADGroup> getADGroups() {
+        return adGroups;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateSearchText() {
+        searchText = toSearchText(getLogonName(), getDistinguishedName());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,9 +1,13 @@
 package de.hirola.adroles.data.entity;
 
 import de.hirola.adroles.data.AbstractEntity;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.validation.constraints.NotEmpty;
+import java.util.Objects;
 
 /**
  * Copyright 2022 by Michael Schmidt, Hirola Consulting
@@ -15,6 +19,8 @@ import javax.validation.constraints.NotEmpty;
  * @since v0.1
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ActiveDirectory extends AbstractEntity {
     @NotEmpty
     private String domainName;
@@ -27,11 +33,20 @@ public class ActiveDirectory extends AbstractEntity {
     @NotEmpty
     private String connectionPassword;
     private boolean isReadOnly;
+    // highest committed USN of the domain controller at the last successful sync
+    private long userSyncUSN;
+    private long groupSyncUSN;
+    // scheduled sync of users, groups and roles - no scheduled sync if empty
+    private String syncCron;
+    private int syncMaxJitterMinutes;
 
     public String getDomainName() {
         return domainName;
     }
     public void setDomainName(String domainName) {
+        if (!Objects.equals(this.domainName, domainName)) {
+            resetSyncUSN();
+        }
         this.domainName = domainName;
     }
 
@@ -40,6 +55,10 @@ public class ActiveDirectory extends AbstractEntity {
     }
 
     public void setIPAddress(String ipAddress) {
+        // the USN is local to a domain controller
+        if (!Objects.equals(this.ipAddress, ipAddress)) {
+            resetSyncUSN();
+        }
         this.ipAddress = ipAddress;
     }
 
@@ -92,4 +111,56 @@ public class ActiveDirectory extends AbstractEntity {
     public void setReadOnly(boolean readOnly) {
         isReadOnly = readOnly;
     }
+
+    public long getUserSyncUSN() {
+        return userSyncUSN;
+    }
+
+    public void setUserSyncUSN(long userSyncUSN) {
+        this.userSyncUSN = userSyncUSN;
+    }
+
+    public long getGroupSyncUSN() {
+        return groupSyncUSN;
+    }
+
+    public void setGroupSyncUSN(long groupSyncUSN) {
+        this.groupSyncUSN = groupSyncUSN;
+    }
+
+    /**
+     * The next sync of users and groups reads the whole directory again.
+     */
+    public void resetSyncUSN() {
+        userSyncUSN = 0;
+        groupSyncUSN = 0;
+    }
+
+    public String getSyncCron() {
+        return syncCron;
+    }
+
+    /**
+     * Set the schedule for the sync with the Active Directory.
+     *
+     * @param syncCron Spring cron expression (second minute hour day month weekday),
+     *                 e.g. "0 0 2 * * *" for every night at 2am - null or empty for no scheduled sync
+     */
+    public void setSyncCron(String syncCron) {
+        this.syncCron = syncCron;
+    }
+
+    public int getSyncMaxJitterMinutes() {
+        return syncMaxJitterMinutes;
+    }
+
+    /**
+     * Set the max. random delay of the scheduled sync, so that not every
+     * installation starts the sync at the same time.
+     *
+     * @param syncMaxJitterMinutes max. delay in minutes, 0 for no delay
+     */
+    public void setSyncMaxJitterMinutes(int syncMaxJitterMinutes) {
+        this.syncMaxJitterMinutes = Math.max(0, syncMaxJitterMinutes);
+    }
 }
@@ -0,0 +1,68 @@
+package de.hirola.adroles.data.entity;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.AbstractEntity;
+
+import javax.persistence.Entity;
+import javax.validation.constraints.NotEmpty;
+import java.util.Objects;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * A rule to classify AD groups, e.g. groups with "proj" in the name are project roles.
+ * If rules for several role resources match, the rule with the lowest priority wins.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Entity
+public class ClassificationRule extends AbstractEntity {
+    private int ruleType; // ==> Global.CLASSIFICATION_RULE
+    @NotEmpty
+    private String pattern; // text, regular expression or number, depends on the rule type
+    private int target = Global.ROLE_RESOURCE.DEFAULT_ROLE; // ==> Global.ROLE_RESOURCE or ADMIN_TARGET
+    private int priority;
+
+    public ClassificationRule() {}
+
+    public ClassificationRule(int ruleType, String pattern, int target, int priority) {
+        this.ruleType = ruleType;
+        this.pattern = pattern;
+        this.target = target;
+        this.priority = priority;
+    }
+
+    public int getRuleType() {
+        return ruleType;
+    }
+
+    public void setRuleType(int ruleType) {
+        this.ruleType = ruleType;
+    }
+
+    public String getPattern() {
+        return Objects.requireNonNullElse(pattern, "");
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public void setTarget(int target) {
+        this.target = target;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+}
@@ -0,0 +1,93 @@
+package de.hirola.adroles.data.entity;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.AbstractEntity;
+
+import javax.persistence.Entity;
+import javax.validation.constraints.NotEmpty;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Represents a run of a background job, e.g. an import from the Active Directory.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Entity
+public class JobHistory extends AbstractEntity {
+    @NotEmpty
+    private String jobType; // ==> Global.JOB_TYPE
+    private int state = Global.JOB_STATE.QUEUED; // ==> Global.JOB_STATE
+    private String startedBy;
+    private LocalDateTime queuedAt, startedAt, finishedAt;
+    private String resultMessage;
+    private Integer checkpointId; // highest id of the last committed chunk
+
+    public String getJobType() {
+        return jobType;
+    }
+
+    public void setJobType(String jobType) {
+        this.jobType = jobType;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int state) {
+        this.state = state;
+    }
+
+    public String getStartedBy() {
+        return Objects.requireNonNullElse(startedBy, "");
+    }
+
+    public void setStartedBy(String startedBy) {
+        this.startedBy = startedBy;
+    }
+
+    public LocalDateTime getQueuedAt() {
+        return queuedAt;
+    }
+
+    public void setQueuedAt(LocalDateTime queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getResultMessage() {
+        return Objects.requireNonNullElse(resultMessage, "");
+    }
+
+    public void setResultMessage(String resultMessage) {
+        this.resultMessage = resultMessage;
+    }
+
+    public Integer getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(Integer checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+}
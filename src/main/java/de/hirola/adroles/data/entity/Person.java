@@ -23,6 +23,13 @@ import java.util.Set;
  */
 
 @Entity
+// the schema is created by the migrations ==> db/migration
+@Table(indexes = @Index(name = "idx_person_department_name", columnList = "department_name"))
+// edit and assignment forms
+@NamedEntityGraph(name = "Person.editForm", attributeNodes = {
+        @NamedAttributeNode("adUsers"),
+        @NamedAttributeNode("roles")
+})
 public class Person extends AbstractEntity implements Comparable<Person> {
     private String centralAccountName; // used the first logon name
     @NotEmpty
@@ -35,12 +42,14 @@ public class Person extends AbstractEntity implements Comparable<Person> {
     private String description;
     private LocalDate entryDate, exitDate;
     private boolean isEmployee;
+    @Column(length = SEARCH_TEXT_LENGTH)
+    private String searchText; // maintained on write, used by the search
 
-    @OneToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     @JoinColumn(name = "person_id")
     private Set<ADUser> adUsers = new LinkedHashSet<>();
 
-    @ManyToMany(mappedBy = "persons", cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "persons", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     private Set<Role> roles = new LinkedHashSet<>();
 
     public String getCentralAccountName() {
@@ -187,6 +196,13 @@ public class Person extends AbstractEntity implements Comparable<Person> {
         isEmployee = employee;
     }
 
+    @PrePersist
+    @PreUpdate
+    private void updateSearchText() {
+        searchText = toSearchText(getLastName(), getFirstName(), getDepartmentName(), getDescription(),
+                getEmailAddress(), getCentralAccountName());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
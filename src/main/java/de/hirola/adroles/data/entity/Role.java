@@ -20,11 +20,29 @@ import java.util.Set;
  */
 
 @Entity
+// the schema is created by the migrations ==> db/migration
+@Table(indexes = {
+        @Index(name = "idx_role_name", columnList = "name"),
+        @Index(name = "idx_role_role_resource", columnList = "role_resource_id")
+})
+@NamedEntityGraphs({
+        // list grids, the resource is shown as icon
+        @NamedEntityGraph(name = "Role.listGrid", attributeNodes = @NamedAttributeNode("roleResource")),
+        // edit and assignment forms
+        @NamedEntityGraph(name = "Role.editForm", attributeNodes = {
+                @NamedAttributeNode("roleResource"),
+                @NamedAttributeNode("adGroups"),
+                @NamedAttributeNode("persons"),
+                @NamedAttributeNode("adUsers")
+        })
+})
 public class Role extends AbstractEntity implements Comparable<Role> {
     @NotEmpty
     private String name;
     private String description;
     public boolean isAdminRole;
+    @Column(length = SEARCH_TEXT_LENGTH)
+    private String searchText; // maintained on write, used by the search
 
     @ManyToOne(cascade = CascadeType.MERGE, fetch= FetchType.EAGER)
     @JoinColumn(name = "role_resource_id")
@@ -38,19 +56,19 @@ public class Role extends AbstractEntity implements Comparable<Role> {
     @JoinColumn(name = "second_responsible_id")
     private Person secondResponsible;
 
-    @ManyToMany(cascade = CascadeType.PERSIST, fetch= FetchType.EAGER)
+    @ManyToMany(cascade = CascadeType.PERSIST, fetch= FetchType.LAZY)
     @JoinTable(name = "role_adgroup",
             joinColumns = @JoinColumn(name = "role_id"),
             inverseJoinColumns = @JoinColumn(name = "adgroup_id"))
     private Set<ADGroup> adGroups = new LinkedHashSet<>();
 
-    @ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     @JoinTable(name = "role_person",
             joinColumns = @JoinColumn(name = "role_id"),
             inverseJoinColumns = @JoinColumn(name = "person_id"))
     private Set<Person> persons = new LinkedHashSet<>();
 
-    @ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     @JoinTable(name = "role_aduser",
             joinColumns = @JoinColumn(name = "role_id"),
             inverseJoinColumns = @JoinColumn(name = "aduser_id"))
@@ -185,6 +203,12 @@ public class Role extends AbstractEntity implements Comparable<Role> {
         adUsers.clear();
     }
 
+    @PrePersist
+    @PreUpdate
+    private void updateSearchText() {
+        searchText = toSearchText(getName(), getDescription());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,7 +1,10 @@
 package de.hirola.adroles.data.entity;
 
 import de.hirola.adroles.data.AbstractEntity;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
@@ -17,12 +20,15 @@ import java.util.Set;
  *
  * <P>Roles can be used for various permissions, such as for folders and distribution lists.
  * Roles can also represent organizations.</P>
+ * <P>The resources rarely change and are kept in the second-level cache.</P>
  *
  * @author Michael Schmidt (Hirola)
  * @since v0.1
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class RoleResource extends AbstractEntity implements Comparable<RoleResource> {
     @NotEmpty
     private String name;
@@ -38,7 +44,7 @@ public class RoleResource extends AbstractEntity implements Comparable<RoleResou
     private boolean isFileShareResource;
     private boolean isEmailResource;
 
-    @OneToMany(mappedBy = "roleResource", fetch= FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(mappedBy = "roleResource", fetch= FetchType.LAZY, orphanRemoval = true)
     private Set<Role> roles = new LinkedHashSet<>();
 
     public String getName() {
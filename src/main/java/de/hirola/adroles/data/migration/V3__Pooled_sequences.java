@@ -0,0 +1,51 @@
+package de.hirola.adroles.data.migration;
+
+import de.hirola.adroles.data.PooledSequenceGenerator;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Replaces the shared <i>hibernate_sequence</i> with one sequence per table
+ * for the {@link PooledSequenceGenerator}. The pooled optimizer uses the value of the sequence
+ * as the end of the reserved block, so the sequences start one block after the highest existing id.
+ * The increment is kept in line with the allocation size by <i>db/migration/afterMigrate.sql</i>.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Component
+public class V3__Pooled_sequences extends BaseJavaMigration {
+    public static final List<String> TABLES = List.of("active_directory", "dbconfig", "users", "authorities",
+            "job_history", "role_resource", "person", "aduser", "adgroup", "role");
+    private static final String ALLOCATION_SIZE_PLACEHOLDER = "idAllocationSize";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        String placeholder = context.getConfiguration().getPlaceholders().get(ALLOCATION_SIZE_PLACEHOLDER);
+        int allocationSize = placeholder == null
+                ? PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE : Integer.parseInt(placeholder.trim());
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long startValue = maxId(statement, table) + allocationSize;
+                statement.execute("create sequence " + table + PooledSequenceGenerator.SEQUENCE_SUFFIX
+                        + " start with " + startValue + " increment by " + allocationSize);
+            }
+            statement.execute("drop sequence hibernate_sequence");
+        }
+    }
+
+    private long maxId(Statement statement, String table) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+}
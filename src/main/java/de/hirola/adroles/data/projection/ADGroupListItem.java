@@ -0,0 +1,26 @@
+package de.hirola.adroles.data.projection;
+
+import java.util.Objects;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * A row of the AD group list, read directly from the database without loading the entity.
+ *
+ * @param id of the AD group
+ * @param name of the AD group
+ * @param description of the AD group
+ * @param isAdminGroup true, if the group is an admin group
+ * @param memberCount number of the direct members
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public record ADGroupListItem(Integer id, String name, String description, boolean isAdminGroup, int memberCount) {
+
+    public ADGroupListItem {
+        name = Objects.requireNonNullElse(name, "");
+        description = Objects.requireNonNullElse(description, "");
+    }
+}
@@ -0,0 +1,27 @@
+package de.hirola.adroles.data.projection;
+
+import java.util.Objects;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * A row of the AD user list, read directly from the database without loading the entity.
+ *
+ * @param id of the AD user
+ * @param logonName of the AD user
+ * @param enabled true, if the account is enabled
+ * @param passwordExpires true, if the password of the account expires
+ * @param isAdminAccount true, if the account is an admin account
+ * @param isServiceAccount true, if the account is a service account
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public record ADUserListItem(Integer id, String logonName, boolean enabled, boolean passwordExpires,
+                             boolean isAdminAccount, boolean isServiceAccount) {
+
+    public ADUserListItem {
+        logonName = Objects.requireNonNullElse(logonName, "");
+    }
+}
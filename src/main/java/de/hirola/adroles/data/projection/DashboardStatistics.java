@@ -0,0 +1,22 @@
+package de.hirola.adroles.data.projection;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * The numbers shown on the dashboard, read with one query.
+ *
+ * @param personCount number of persons
+ * @param orgRoleCount number of roles with the organisation resource
+ * @param roleCount number of all roles
+ * @param adUserCount number of AD users
+ * @param adGroupCount number of AD groups
+ * @param adminGroupCount number of administrative AD groups
+ * @param passwordNeverExpiresCount number of AD users with a password which never expires
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public record DashboardStatistics(long personCount, long orgRoleCount, long roleCount, long adUserCount,
+                                  long adGroupCount, long adminGroupCount, long passwordNeverExpiresCount) {
+}
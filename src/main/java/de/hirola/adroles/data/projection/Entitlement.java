@@ -0,0 +1,17 @@
+package de.hirola.adroles.data.projection;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * An effective AD group of a person, granted by a role.
+ *
+ * @param personId id of the person
+ * @param roleId id of the role with the person and the AD group
+ * @param adGroupId id of the AD group
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public record Entitlement(Integer personId, Integer roleId, Integer adGroupId) {
+}
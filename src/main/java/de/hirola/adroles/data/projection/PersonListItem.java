@@ -0,0 +1,32 @@
+package de.hirola.adroles.data.projection;
+
+import java.util.Objects;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * A row of the person list, read directly from the database without loading the entity.
+ *
+ * @param id of the person
+ * @param lastName of the person
+ * @param firstName of the person
+ * @param centralAccountName first logon name of the person
+ * @param departmentName of the person
+ * @param description of the person
+ * @param isEmployee true, if the person is an employee
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public record PersonListItem(Integer id, String lastName, String firstName, String centralAccountName,
+                             String departmentName, String description, boolean isEmployee) {
+
+    public PersonListItem {
+        lastName = Objects.requireNonNullElse(lastName, "");
+        firstName = Objects.requireNonNullElse(firstName, "");
+        centralAccountName = Objects.requireNonNullElse(centralAccountName, "");
+        departmentName = Objects.requireNonNullElse(departmentName, "");
+        description = Objects.requireNonNullElse(description, "");
+    }
+}
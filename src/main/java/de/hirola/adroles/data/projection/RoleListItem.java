@@ -0,0 +1,28 @@
+package de.hirola.adroles.data.projection;
+
+import java.util.Objects;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * A row of the role list, read directly from the database without loading the entity.
+ *
+ * @param id of the role
+ * @param name of the role
+ * @param description of the role
+ * @param isAdminRole true, if the role is an admin role
+ * @param roleResourceType type of the resource ==> Global.ROLE_RESOURCE, -1 if the role has no resource
+ * @param personCount number of the assigned persons
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public record RoleListItem(Integer id, String name, String description, boolean isAdminRole,
+                           int roleResourceType, int personCount) {
+
+    public RoleListItem {
+        name = Objects.requireNonNullElse(name, "");
+        description = Objects.requireNonNullElse(description, "");
+    }
+}
@@ -0,0 +1,102 @@
+package de.hirola.adroles.data.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Writes the direct memberships of AD users in AD groups (table <i>adgroup_member</i>).
+ * The edges are written in JDBC batches, without loading the entities.
+ * For queries use the mapping {@link de.hirola.adroles.data.entity.ADGroup#getMembers()}.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Repository
+public class ADGroupMemberRepository {
+    private static final int BATCH_SIZE = 500;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ADGroupMemberRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Load the ids of the members for the groups.
+     *
+     * @param adGroupIds ids of the groups
+     * @return the ids of the members for every group with members
+     */
+    public Map<Integer, Set<Integer>> findMemberIds(Collection<Integer> adGroupIds) {
+        Map<Integer, Set<Integer>> memberIdsByGroupId = new HashMap<>(adGroupIds.size() * 2);
+        if (adGroupIds.isEmpty()) {
+            return memberIdsByGroupId;
+        }
+        String placeholders = String.join(",", Collections.nCopies(adGroupIds.size(), "?"));
+        jdbcTemplate.query("select adgroup_id, aduser_id from adgroup_member where adgroup_id in (" + placeholders + ")",
+                resultSet -> {
+                    memberIdsByGroupId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                }, adGroupIds.toArray());
+        return memberIdsByGroupId;
+    }
+
+    /**
+     * Load the ids of the (direct) groups for the members.
+     *
+     * @param adUserIds ids of the members
+     * @return the ids of the groups for every member with groups
+     */
+    public Map<Integer, Set<Integer>> findADGroupIds(Collection<Integer> adUserIds) {
+        Map<Integer, Set<Integer>> adGroupIdsByMemberId = new HashMap<>(adUserIds.size() * 2);
+        if (adUserIds.isEmpty()) {
+            return adGroupIdsByMemberId;
+        }
+        String placeholders = String.join(",", Collections.nCopies(adUserIds.size(), "?"));
+        jdbcTemplate.query("select aduser_id, adgroup_id from adgroup_member where aduser_id in (" + placeholders + ")",
+                resultSet -> {
+                    adGroupIdsByMemberId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                }, adUserIds.toArray());
+        return adGroupIdsByMemberId;
+    }
+
+    /**
+     * Add the memberships, every entry contains {adgroup_id, aduser_id}.
+     *
+     * @param edges to insert
+     */
+    public void insertAll(List<Integer[]> edges) {
+        jdbcTemplate.batchUpdate("insert into adgroup_member (adgroup_id, aduser_id) values (?, ?)",
+                edges, BATCH_SIZE, (statement, edge) -> {
+                    statement.setInt(1, edge[0]);
+                    statement.setInt(2, edge[1]);
+                });
+    }
+
+    /**
+     * Remove the memberships, every entry contains {adgroup_id, aduser_id}.
+     *
+     * @param edges to delete
+     */
+    public void deleteAll(List<Integer[]> edges) {
+        jdbcTemplate.batchUpdate("delete from adgroup_member where adgroup_id = ? and aduser_id = ?",
+                edges, BATCH_SIZE, (statement, edge) -> {
+                    statement.setInt(1, edge[0]);
+                    statement.setInt(2, edge[1]);
+                });
+    }
+
+    /**
+     * Remove all memberships of an AD user, e.g. before the user is deleted.
+     *
+     * @param adUserId id of the user
+     */
+    public void deleteByADUserId(Integer adUserId) {
+        jdbcTemplate.update("delete from adgroup_member where aduser_id = ?", adUserId);
+    }
+}
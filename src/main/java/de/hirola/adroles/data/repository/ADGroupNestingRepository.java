@@ -0,0 +1,153 @@
+package de.hirola.adroles.data.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Writes the nesting of AD groups (table <i>adgroup_nesting</i>, direct member groups)
+ * and the transitive closure of the nesting (table <i>adgroup_closure</i>, every group
+ * with all directly or indirectly nested groups and itself).
+ * The rows are written in JDBC batches, without loading the entities.
+ * For queries use the mappings {@link de.hirola.adroles.data.entity.ADGroup#getMemberGroups()}
+ * and {@link de.hirola.adroles.data.entity.ADGroup#getNestedGroups()}.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Repository
+public class ADGroupNestingRepository {
+    private static final int BATCH_SIZE = 500;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ADGroupNestingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Load all direct nesting edges.
+     *
+     * @return the ids of the member groups for every group with member groups
+     */
+    public Map<Integer, Set<Integer>> findAllMemberGroupIds() {
+        Map<Integer, Set<Integer>> memberGroupIdsByGroupId = new HashMap<>();
+        jdbcTemplate.query("select adgroup_id, member_adgroup_id from adgroup_nesting",
+                resultSet -> {
+                    memberGroupIdsByGroupId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                });
+        return memberGroupIdsByGroupId;
+    }
+
+    /**
+     * Add direct nesting edges, every entry contains {adgroup_id, member_adgroup_id}.
+     *
+     * @param edges to insert
+     */
+    public void insertNesting(List<Integer[]> edges) {
+        batchUpdate("insert into adgroup_nesting (adgroup_id, member_adgroup_id) values (?, ?)", edges);
+    }
+
+    /**
+     * Remove direct nesting edges, every entry contains {adgroup_id, member_adgroup_id}.
+     *
+     * @param edges to delete
+     */
+    public void deleteNesting(List<Integer[]> edges) {
+        batchUpdate("delete from adgroup_nesting where adgroup_id = ? and member_adgroup_id = ?", edges);
+    }
+
+    /**
+     * Load the groups containing the given groups (directly or indirectly).
+     *
+     * @param adGroupIds ids of the nested groups
+     * @return the ids of the groups with one of the nested groups, including the given groups
+     */
+    public Set<Integer> findAncestorIds(Collection<Integer> adGroupIds) {
+        Set<Integer> ancestorIds = new HashSet<>(adGroupIds);
+        if (adGroupIds.isEmpty()) {
+            return ancestorIds;
+        }
+        jdbcTemplate.query("select adgroup_id from adgroup_closure where nested_adgroup_id in ("
+                        + placeholders(adGroupIds.size()) + ")",
+                resultSet -> {
+                    ancestorIds.add(resultSet.getInt(1));
+                }, adGroupIds.toArray());
+        return ancestorIds;
+    }
+
+    /**
+     * Load the groups without a row in the closure, e.g. new groups.
+     *
+     * @return the ids of the groups
+     */
+    public List<Integer> findIdsWithoutClosure() {
+        return jdbcTemplate.queryForList("select g.id from adgroup g where not exists "
+                + "(select 1 from adgroup_closure c where c.adgroup_id = g.id)", Integer.class);
+    }
+
+    /**
+     * Load the closure of the groups.
+     *
+     * @param adGroupIds ids of the groups
+     * @return the ids of the nested groups (including itself) for every group
+     */
+    public Map<Integer, Set<Integer>> findNestedGroupIds(Collection<Integer> adGroupIds) {
+        Map<Integer, Set<Integer>> nestedGroupIdsByGroupId = new HashMap<>(adGroupIds.size() * 2);
+        if (adGroupIds.isEmpty()) {
+            return nestedGroupIdsByGroupId;
+        }
+        jdbcTemplate.query("select adgroup_id, nested_adgroup_id from adgroup_closure where adgroup_id in ("
+                        + placeholders(adGroupIds.size()) + ")",
+                resultSet -> {
+                    nestedGroupIdsByGroupId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                }, adGroupIds.toArray());
+        return nestedGroupIdsByGroupId;
+    }
+
+    /**
+     * Add closure rows, every entry contains {adgroup_id, nested_adgroup_id}.
+     *
+     * @param edges to insert
+     */
+    public void insertClosure(List<Integer[]> edges) {
+        batchUpdate("insert into adgroup_closure (adgroup_id, nested_adgroup_id) values (?, ?)", edges);
+    }
+
+    /**
+     * Remove closure rows, every entry contains {adgroup_id, nested_adgroup_id}.
+     *
+     * @param edges to delete
+     */
+    public void deleteClosure(List<Integer[]> edges) {
+        batchUpdate("delete from adgroup_closure where adgroup_id = ? and nested_adgroup_id = ?", edges);
+    }
+
+    /**
+     * Remove all nesting and closure rows of a group, e.g. before the group is deleted.
+     *
+     * @param adGroupId id of the group
+     */
+    public void deleteByADGroupId(Integer adGroupId) {
+        jdbcTemplate.update("delete from adgroup_nesting where adgroup_id = ? or member_adgroup_id = ?",
+                adGroupId, adGroupId);
+        jdbcTemplate.update("delete from adgroup_closure where adgroup_id = ? or nested_adgroup_id = ?",
+                adGroupId, adGroupId);
+    }
+
+    private void batchUpdate(String sql, List<Integer[]> edges) {
+        jdbcTemplate.batchUpdate(sql, edges, BATCH_SIZE, (statement, edge) -> {
+            statement.setInt(1, edge[0]);
+            statement.setInt(2, edge[1]);
+        });
+    }
+
+    private String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
@@ -1,26 +1,77 @@
 package de.hirola.adroles.data.repository;
 
+import de.hirola.adroles.data.AbstractEntity;
 import de.hirola.adroles.data.entity.ADGroup;
+import de.hirola.adroles.data.projection.ADGroupListItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ADGroupRepository extends JpaRepository<ADGroup, Integer> {
+    String MEMBER_COUNT = "size(g.members)";
+    // the search term must be in lower case ==> ADGroup#searchText
+    String LIST_ITEM_FILTER = "where g.searchText like concat('%', :searchTerm, '%')";
 
-    @Query("select g from ADGroup g " +
-            "where lower(g.name) like lower(concat('%', :searchTerm, '%')) " +"" +
-            "or lower(g.description) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(g.distinguishedName) like lower(concat('%', :searchTerm, '%')) " +
-            "order by g.name")
+    // the order is given by the pageable
+    @Query("select new de.hirola.adroles.data.projection.ADGroupListItem(" +
+            "g.id, g.name, g.description, g.isAdminGroup, " + MEMBER_COUNT + ") " +
+            "from ADGroup g " + LIST_ITEM_FILTER)
+    Slice<ADGroupListItem> findListItems(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("select count(g) from ADGroup g " + LIST_ITEM_FILTER)
+    long countListItems(@Param("searchTerm") String searchTerm);
+
+    // matches at the start of the name first
+    @Query("select g from ADGroup g " + LIST_ITEM_FILTER + " " +
+            "order by case when g.searchText like concat(:searchTerm, '%') then 0 else 1 end, g.name")
     List<ADGroup> search(@Param("searchTerm") String searchTerm);
 
+    // rows written before the search column existed, cut to the column length like the entity
+    @Modifying
+    @Query("update ADGroup g set g.searchText = substring(lower(concat(" +
+            "coalesce(g.name, ''), '|', coalesce(g.description, ''), '|', coalesce(g.distinguishedName, '')), 1, " + AbstractEntity.SEARCH_TEXT_LENGTH + ") " +
+            "where g.searchText is null")
+    int fillMissingSearchText();
+
     Optional<ADGroup> findFirstByObjectSID(String objectSID);
 
+    List<ADGroup> findByObjectSIDIn(Collection<String> objectSIDs);
+
+    @Query("select g.objectSID, g.id from ADGroup g")
+    List<Object[]> findAllObjectSIDsAndIds();
+
+    @Query("select g.id from ADGroup g order by g.id")
+    List<Integer> findAllIds();
+
+    @Query("select g.id, g.name from ADGroup g")
+    List<Object[]> findAllIdsAndNames();
+
     Optional<ADGroup> findFirstByName(String name);
 
+    @Query("select g from ADGroup g join g.members m where m.id = :adUserId order by g.name")
+    List<ADGroup> findByMemberId(@Param("adUserId") Integer adUserId);
+
+    @Query("select m.id, g from ADGroup g join g.members m")
+    List<Object[]> findAllMemberIdsAndGroups();
+
+    @Query("select distinct g from ADGroup g join g.nestedGroups n join n.members m " +
+            "where m.id = :adUserId order by g.name")
+    List<ADGroup> findEffectiveByMemberId(@Param("adUserId") Integer adUserId);
+
+    @Query("select g.distinguishedName, g.id from ADGroup g")
+    List<Object[]> findAllDistinguishedNamesAndIds();
+
+    @EntityGraph("ADGroup.roles")
+    Optional<ADGroup> findWithRolesById(Integer id);
+
     long countByIsAdminGroupTrue();
 
 }
@@ -1,25 +1,77 @@
 package de.hirola.adroles.data.repository;
 
+import de.hirola.adroles.data.AbstractEntity;
 import de.hirola.adroles.data.entity.ADUser;
+import de.hirola.adroles.data.projection.ADUserListItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ADUserRepository extends JpaRepository<ADUser, Integer> {
-    @Query("select a from ADUser a " +
-            "where lower(a.logonName) like lower(concat('%', :searchTerm, '%')) " +"" +
-            "or lower(a.distinguishedName) like lower(concat('%', :searchTerm, '%')) " +
-            "order by a.logonName")
+    // the search term must be in lower case ==> ADUser#searchText
+    String LIST_ITEM_FILTER = "where a.searchText like concat('%', :searchTerm, '%')";
+
+    // the order is given by the pageable
+    @Query("select new de.hirola.adroles.data.projection.ADUserListItem(" +
+            "a.id, a.logonName, a.enabled, a.passwordExpires, a.isAdminAccount, a.isServiceAccount) " +
+            "from ADUser a " + LIST_ITEM_FILTER)
+    Slice<ADUserListItem> findListItems(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("select count(a) from ADUser a " + LIST_ITEM_FILTER)
+    long countListItems(@Param("searchTerm") String searchTerm);
+
+    // matches at the start of the logon name first
+    @Query("select a from ADUser a " + LIST_ITEM_FILTER + " " +
+            "order by case when a.searchText like concat(:searchTerm, '%') then 0 else 1 end, a.logonName")
     List<ADUser> search(@Param("searchTerm") String searchTerm);
 
+    // rows written before the search column existed, cut to the column length like the entity
+    @Modifying
+    @Query("update ADUser a set a.searchText = substring(lower(concat(" +
+            "coalesce(a.logonName, ''), '|', coalesce(a.distinguishedName, '')), 1, " + AbstractEntity.SEARCH_TEXT_LENGTH + ") " +
+            "where a.searchText is null")
+    int fillMissingSearchText();
+
     Optional<ADUser> findFirstByObjectSID(String objectSID);
 
+    List<ADUser> findByObjectSIDIn(Collection<String> objectSIDs);
+
+    @Query("select a.objectSID, a.id from ADUser a")
+    List<Object[]> findAllObjectSIDsAndIds();
+
+    @Query("select a.distinguishedName, a.id from ADUser a")
+    List<Object[]> findAllDistinguishedNamesAndIds();
+
+    // the id of the person is null for accounts without person
+    @Query("select a.logonName, a.id, p.id from ADUser a left join a.person p")
+    List<Object[]> findAllLogonNamesAndPersonIds();
+
+    // only the rows which change
+    @Modifying
+    @Query("update ADUser a set a.isRoleManaged = true where a.person.id in :personIds and a.isRoleManaged = false")
+    int markAsRoleManaged(@Param("personIds") Collection<Integer> personIds);
+
+    @Query("select distinct m from ADGroup g join g.nestedGroups n join n.members m " +
+            "where g.id = :adGroupId order by m.logonName")
+    List<ADUser> findEffectiveMembersByADGroupId(@Param("adGroupId") Integer adGroupId);
+
+    @EntityGraph("ADUser.roles")
+    Optional<ADUser> findWithRolesById(Integer id);
+
+    List<ADUser> findByPerson_IdIn(Collection<Integer> personIds);
+
     List<ADUser> findByIsRoleManagedTrueOrderByLogonNameAsc();
 
-    List<ADUser> findByPerson_IdAndIsRoleManagedTrue(Integer id);
+    @Query("select a.person.id, a.id from ADUser a where a.person.id in :personIds and a.isRoleManaged = true")
+    List<Object[]> findManagedIdsByPersonIds(@Param("personIds") Collection<Integer> personIds);
 
     long countByPasswordExpiresFalse();
 }
@@ -2,7 +2,27 @@ package de.hirola.adroles.data.repository;
 
 import de.hirola.adroles.data.entity.ActiveDirectory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
+// the results are kept in the query cache, hibernate invalidates them on every change of the configuration
 public interface ActiveDirectoryRepository extends JpaRepository<ActiveDirectory, Integer> {
 
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<ActiveDirectory> findAll();
+
+    // only the state of the sync, other settings may be edited but not saved yet
+    @Modifying
+    @Query("update ActiveDirectory a set a.userSyncUSN = :userSyncUSN where a.id = :id")
+    int updateUserSyncUSN(@Param("id") Integer id, @Param("userSyncUSN") long userSyncUSN);
+
+    @Modifying
+    @Query("update ActiveDirectory a set a.groupSyncUSN = :groupSyncUSN where a.id = :id")
+    int updateGroupSyncUSN(@Param("id") Integer id, @Param("groupSyncUSN") long groupSyncUSN);
 }
@@ -0,0 +1,11 @@
+package de.hirola.adroles.data.repository;
+
+import de.hirola.adroles.data.entity.ClassificationRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ClassificationRuleRepository extends JpaRepository<ClassificationRule, Integer> {
+
+    List<ClassificationRule> findAllByOrderByPriorityAscIdAsc();
+}
@@ -2,9 +2,18 @@ package de.hirola.adroles.data.repository;
 
 import de.hirola.adroles.data.entity.DBConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+// the results are kept in the query cache, hibernate invalidates them on every change of a configuration
 public interface DBConfigRepository extends JpaRepository<DBConfig, Integer> {
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     Optional<DBConfig> findByName(String name);
+
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<DBConfig> findAll();
 }
@@ -0,0 +1,123 @@
+package de.hirola.adroles.data.repository;
+
+import de.hirola.adroles.data.projection.Entitlement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Maintains the effective AD groups of the persons (table <i>person_entitlement</i>),
+ * one row for every person, role of the person and AD group of the role.
+ * After the assignments of persons or AD groups to roles are changed, the rows of the
+ * affected persons, roles or groups are compared with the assignments in the database:
+ * missing rows are added and rows without assignments are removed, other rows are not written.
+ * The assignments must be written (flushed) before.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Repository
+public class EntitlementRepository {
+    private static final int BATCH_SIZE = 500;
+    private static final RowMapper<Entitlement> ENTITLEMENT_MAPPER = (resultSet, rowNum) ->
+            new Entitlement(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3));
+    private final JdbcTemplate jdbcTemplate;
+
+    public EntitlementRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Entitlement> findByPersonId(Integer personId) {
+        return jdbcTemplate.query("select person_id, role_id, adgroup_id from person_entitlement "
+                + "where person_id = ?", ENTITLEMENT_MAPPER, personId);
+    }
+
+    public List<Entitlement> findByRoleId(Integer roleId) {
+        return jdbcTemplate.query("select person_id, role_id, adgroup_id from person_entitlement "
+                + "where role_id = ?", ENTITLEMENT_MAPPER, roleId);
+    }
+
+    public List<Entitlement> findByADGroupId(Integer adGroupId) {
+        return jdbcTemplate.query("select person_id, role_id, adgroup_id from person_entitlement "
+                + "where adgroup_id = ?", ENTITLEMENT_MAPPER, adGroupId);
+    }
+
+    /**
+     * Update the rows of the persons, e.g. after persons were added to or removed from roles.
+     *
+     * @param personIds ids of the persons
+     */
+    public void refreshPersons(Collection<Integer> personIds) {
+        refresh("person_id", "rp.person_id", personIds);
+    }
+
+    /**
+     * Update the rows of the roles, e.g. after persons or AD groups of the roles were changed.
+     *
+     * @param roleIds ids of the roles
+     */
+    public void refreshRoles(Collection<Integer> roleIds) {
+        refresh("role_id", "rp.role_id", roleIds);
+    }
+
+    /**
+     * Update the rows of the AD groups, e.g. after the groups were added to or removed from roles.
+     *
+     * @param adGroupIds ids of the AD groups
+     */
+    public void refreshADGroups(Collection<Integer> adGroupIds) {
+        refresh("adgroup_id", "ra.adgroup_id", adGroupIds);
+    }
+
+    /**
+     * Remove all rows of a person, e.g. before the person is deleted.
+     *
+     * @param personId id of the person
+     */
+    public void deleteByPersonId(Integer personId) {
+        jdbcTemplate.update("delete from person_entitlement where person_id = ?", personId);
+    }
+
+    /**
+     * Remove all rows of a role, e.g. before the role is deleted.
+     *
+     * @param roleId id of the role
+     */
+    public void deleteByRoleId(Integer roleId) {
+        jdbcTemplate.update("delete from person_entitlement where role_id = ?", roleId);
+    }
+
+    /**
+     * Remove all rows of an AD group, e.g. before the group is deleted.
+     *
+     * @param adGroupId id of the AD group
+     */
+    public void deleteByADGroupId(Integer adGroupId) {
+        jdbcTemplate.update("delete from person_entitlement where adgroup_id = ?", adGroupId);
+    }
+
+    // the rows of the given ids without assignments are removed, the missing rows are added
+    private void refresh(String column, String assignmentColumn, Collection<Integer> ids) {
+        List<Integer> distinctIds = new ArrayList<>(new HashSet<>(ids));
+        for (int from = 0; from < distinctIds.size(); from += BATCH_SIZE) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + BATCH_SIZE, distinctIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update("delete from person_entitlement e where e." + column + " in (" + placeholders + ") "
+                    + "and (not exists (select 1 from role_person rp "
+                    + "where rp.role_id = e.role_id and rp.person_id = e.person_id) "
+                    + "or not exists (select 1 from role_adgroup ra "
+                    + "where ra.role_id = e.role_id and ra.adgroup_id = e.adgroup_id))", chunk.toArray());
+            jdbcTemplate.update("insert into person_entitlement (person_id, role_id, adgroup_id) "
+                    + "select rp.person_id, rp.role_id, ra.adgroup_id "
+                    + "from role_person rp join role_adgroup ra on ra.role_id = rp.role_id "
+                    + "where " + assignmentColumn + " in (" + placeholders + ") "
+                    + "and not exists (select 1 from person_entitlement e where e.person_id = rp.person_id "
+                    + "and e.role_id = rp.role_id and e.adgroup_id = ra.adgroup_id)", chunk.toArray());
+        }
+    }
+}
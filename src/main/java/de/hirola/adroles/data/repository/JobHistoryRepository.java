@@ -0,0 +1,23 @@
+package de.hirola.adroles.data.repository;
+
+import de.hirola.adroles.data.entity.JobHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface JobHistoryRepository extends JpaRepository<JobHistory, Integer> {
+
+    List<JobHistory> findTop50ByOrderByQueuedAtDesc();
+
+    List<JobHistory> findByStateIn(List<Integer> states);
+
+    Optional<JobHistory> findFirstByJobTypeOrderByQueuedAtDesc(String jobType);
+
+    @Modifying
+    @Query("update JobHistory j set j.checkpointId = :checkpointId where j.id = :id")
+    int updateCheckpoint(@Param("id") Integer id, @Param("checkpointId") Integer checkpointId);
+}
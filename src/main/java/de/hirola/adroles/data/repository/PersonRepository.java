@@ -1,39 +1,79 @@
 package de.hirola.adroles.data.repository;
 
+import de.hirola.adroles.data.AbstractEntity;
 import de.hirola.adroles.data.entity.Person;
+import de.hirola.adroles.data.projection.PersonListItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PersonRepository extends JpaRepository<Person, Integer> {
+    // the search term must be in lower case ==> Person#searchText
+    String LIST_ITEM_FILTER = "where p.searchText like concat('%', :searchTerm, '%')";
+    // matches at the start of the last name first
+    String SEARCH_RANK = "case when p.searchText like concat(:searchTerm, '%') then 0 else 1 end";
 
-    @Query("select p from Person p " +
-        "where lower(p.firstName) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(p.lastName) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.departmentName) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.description) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.emailAddress) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.centralAccountName) like lower(concat('%', :searchTerm, '%')) " +
-            "order by p.lastName")
+    // the order is given by the pageable
+    @Query("select new de.hirola.adroles.data.projection.PersonListItem(" +
+            "p.id, p.lastName, p.firstName, p.centralAccountName, p.departmentName, p.description, p.isEmployee) " +
+            "from Person p " + LIST_ITEM_FILTER)
+    Slice<PersonListItem> findListItems(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("select count(p) from Person p " + LIST_ITEM_FILTER)
+    long countListItems(@Param("searchTerm") String searchTerm);
+
+    @Query("select p from Person p " + LIST_ITEM_FILTER + " order by " + SEARCH_RANK + ", p.lastName")
     List<Person> search(@Param("searchTerm") String searchTerm);
 
     @Query("select p from Person p " +
-            "where p.isEmployee = true and " +
-            "(lower(p.firstName) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(p.lastName) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.departmentName) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.description) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.emailAddress) like lower(concat('%', :searchTerm, '%'))" +
-            "or lower(p.centralAccountName) like lower(concat('%', :searchTerm, '%'))) " +
-            "order by p.lastName")
+            "where p.isEmployee = true and p.searchText like concat('%', :searchTerm, '%') " +
+            "order by " + SEARCH_RANK + ", p.lastName")
     List<Person> searchEmployees(@Param("searchTerm") String searchTerm);
 
+    // rows written before the search column existed, cut to the column length like the entity
+    @Modifying
+    @Query("update Person p set p.searchText = substring(lower(concat(" +
+            "coalesce(p.lastName, ''), '|', coalesce(p.firstName, ''), '|', " +
+            "coalesce(p.departmentName, ''), '|', coalesce(p.description, ''), '|', " +
+            "coalesce(p.emailAddress, ''), '|', coalesce(p.centralAccountName, '')), 1, " + AbstractEntity.SEARCH_TEXT_LENGTH + ") " +
+            "where p.searchText is null")
+    int fillMissingSearchText();
+
+    @EntityGraph("Person.editForm")
+    Optional<Person> findWithAssignmentsById(Integer id);
+
+    @EntityGraph("Person.editForm")
+    List<Person> findWithAssignmentsByIdIn(Collection<Integer> ids);
+
+    @Query("select p.centralAccountName, p.id from Person p where p.centralAccountName <> '' order by p.id")
+    List<Object[]> findAllCentralAccountNamesAndIds();
+
+    @Query("select p.id from Person p order by p.id")
+    List<Integer> findAllIds();
+
+    @Query("select p.id, p.departmentName from Person p where p.departmentName <> ''")
+    List<Object[]> findAllIdsAndDepartmentNames();
+
+    // only the rows which change
+    @Modifying
+    @Query("update Person p set p.isEmployee = true where p.id in :ids and p.isEmployee = false")
+    int markAsEmployees(@Param("ids") Collection<Integer> ids);
+
     Optional<Person> findByAdUsers_LogonName(@NonNull String logonName);
 
+    // the logon name with the person, the accounts of the persons are not loaded
+    @Query("select a.logonName, p from ADUser a join a.person p where a.logonName in :logonNames")
+    List<Object[]> findLogonNamesAndPersons(@Param("logonNames") Collection<String> logonNames);
+
     List<Person> findByIsEmployeeTrueOrderByLastNameAscFirstNameAsc();
 
     @Query("select distinct departmentName from Person where departmentName <> ''")
@@ -0,0 +1,107 @@
+package de.hirola.adroles.data.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ * <p>
+ * Writes the assignments of AD groups (table <i>role_adgroup</i>) and persons (table <i>role_person</i>)
+ * to roles for the bulk jobs. The edges are written in JDBC batches, without loading the entities.
+ * For queries use the mappings {@link de.hirola.adroles.data.entity.Role#getADGroups()}
+ * and {@link de.hirola.adroles.data.entity.Role#getPersons()}.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Repository
+public class RoleAssignmentRepository {
+    private static final int BATCH_SIZE = 500;
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoleAssignmentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Load all assignments of AD groups with one query.
+     *
+     * @return the ids of the AD groups for every role with AD groups
+     */
+    public Map<Integer, Set<Integer>> findAllADGroupIds() {
+        Map<Integer, Set<Integer>> adGroupIdsByRoleId = new HashMap<>();
+        jdbcTemplate.query("select role_id, adgroup_id from role_adgroup",
+                resultSet -> {
+                    adGroupIdsByRoleId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                });
+        return adGroupIdsByRoleId;
+    }
+
+    /**
+     * Add the assignments, every entry contains {role_id, adgroup_id}.
+     *
+     * @param edges to insert
+     */
+    public void insertADGroups(List<Integer[]> edges) {
+        jdbcTemplate.batchUpdate("insert into role_adgroup (role_id, adgroup_id) values (?, ?)",
+                edges, BATCH_SIZE, (statement, edge) -> {
+                    statement.setInt(1, edge[0]);
+                    statement.setInt(2, edge[1]);
+                });
+    }
+
+    /**
+     * Load the assignments of persons to organisation roles with one query.
+     *
+     * @return the ids of the persons for every organisation role with persons
+     */
+    public Map<Integer, Set<Integer>> findAllOrgRolePersonIds() {
+        Map<Integer, Set<Integer>> personIdsByRoleId = new HashMap<>();
+        jdbcTemplate.query("select rp.role_id, rp.person_id from role_person rp " +
+                        "join role r on r.id = rp.role_id " +
+                        "join role_resource rr on rr.id = r.role_resource_id " +
+                        "where rr.is_org_resource = true",
+                resultSet -> {
+                    personIdsByRoleId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                });
+        return personIdsByRoleId;
+    }
+
+    /**
+     * Load the ids of the roles for the persons.
+     *
+     * @param personIds ids of the persons
+     * @return the ids of the roles for every person with roles
+     */
+    public Map<Integer, Set<Integer>> findRoleIds(Collection<Integer> personIds) {
+        Map<Integer, Set<Integer>> roleIdsByPersonId = new HashMap<>(personIds.size() * 2);
+        if (personIds.isEmpty()) {
+            return roleIdsByPersonId;
+        }
+        String placeholders = String.join(",", Collections.nCopies(personIds.size(), "?"));
+        jdbcTemplate.query("select person_id, role_id from role_person where person_id in (" + placeholders + ")",
+                resultSet -> {
+                    roleIdsByPersonId.computeIfAbsent(resultSet.getInt(1), key -> new HashSet<>())
+                            .add(resultSet.getInt(2));
+                }, personIds.toArray());
+        return roleIdsByPersonId;
+    }
+
+    /**
+     * Add the assignments, every entry contains {role_id, person_id}.
+     *
+     * @param edges to insert
+     */
+    public void insertPersons(List<Integer[]> edges) {
+        jdbcTemplate.batchUpdate("insert into role_person (role_id, person_id) values (?, ?)",
+                edges, BATCH_SIZE, (statement, edge) -> {
+                    statement.setInt(1, edge[0]);
+                    statement.setInt(2, edge[1]);
+                });
+    }
+}
@@ -1,60 +1,118 @@
 package de.hirola.adroles.data.repository;
 
+import de.hirola.adroles.data.AbstractEntity;
 import de.hirola.adroles.data.entity.Role;
+import de.hirola.adroles.data.projection.RoleListItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Integer> {
-
+    // the type of the resource ==> Global.ROLE_RESOURCE
+    // the parentheses keep the sort expression unqualified
+    String ROLE_RESOURCE_TYPE = "(case when rr.id is null then -1 " +
+            "when rr.isOrgResource = true then 1 " +
+            "when rr.isProjectResource = true then 2 " +
+            "when rr.isFileShareResource = true then 3 " +
+            "when rr.isEmailResource = true then 4 " +
+            "else 0 end)";
+    String PERSON_COUNT = "size(r.persons)";
+    // the search term must be in lower case ==> Role#searchText
+    String LIST_ITEM_FILTER = "where r.searchText like concat('%', :searchTerm, '%')";
+    // matches at the start of the name first
+    String SEARCH_RANK = "case when r.searchText like concat(:searchTerm, '%') then 0 else 1 end";
+
+    // the order is given by the pageable
+    @Query("select new de.hirola.adroles.data.projection.RoleListItem(" +
+            "r.id, r.name, r.description, r.isAdminRole, " + ROLE_RESOURCE_TYPE + ", " + PERSON_COUNT + ") " +
+            "from Role r left join r.roleResource rr " + LIST_ITEM_FILTER)
+    Slice<RoleListItem> findListItems(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("select count(r) from Role r " + LIST_ITEM_FILTER)
+    long countListItems(@Param("searchTerm") String searchTerm);
+
+    @EntityGraph("Role.listGrid")
     @Query("select r from Role r " +
-            "where lower(r.name) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(r.description) like lower(concat('%', :searchTerm, '%')) " +
-            "order by r.name")
+            LIST_ITEM_FILTER + " order by " + SEARCH_RANK + ", r.name")
     List<Role> search(@Param("searchTerm") String searchTerm);
 
+    @EntityGraph("Role.listGrid")
     @Query("select r from Role r " +
-            "where lower(r.name) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(r.description) like lower(concat('%', :searchTerm, '%')) " +
-            "order by r.name")
+            LIST_ITEM_FILTER + " order by " + SEARCH_RANK + ", r.name")
     List<Role> searchOrg(@Param("searchTerm") String searchTerm);
 
+    @EntityGraph("Role.listGrid")
     @Query("select r from Role r, RoleResource rr " +
             "where rr.isProjectResource = true " +
-            "and (lower(r.name) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(r.description) like lower(concat('%', :searchTerm, '%'))) " +
-            "order by r.name")
+            "and r.searchText like concat('%', :searchTerm, '%') " +
+            "order by " + SEARCH_RANK + ", r.name")
     List<Role> searchProject(@Param("searchTerm") String searchTerm);
 
+    @EntityGraph("Role.listGrid")
     @Query("select r from Role r, RoleResource rr " +
             "where rr.isFileShareResource = true " +
-            "and (lower(r.name) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(r.description) like lower(concat('%', :searchTerm, '%'))) " +
-            "order by r.name")
+            "and r.searchText like concat('%', :searchTerm, '%') " +
+            "order by " + SEARCH_RANK + ", r.name")
     List<Role> searchFileShare(@Param("searchTerm") String searchTerm);
 
+    @EntityGraph("Role.listGrid")
     @Query("select r from Role r, RoleResource rr " +
             "where rr.isEmailResource = true " +
-            "and (lower(r.name) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(r.description) like lower(concat('%', :searchTerm, '%'))) " +
-            "order by r.name")
+            "and r.searchText like concat('%', :searchTerm, '%') " +
+            "order by " + SEARCH_RANK + ", r.name")
     List<Role> searchMailResource(@Param("searchTerm") String searchTerm);
 
+    @EntityGraph("Role.listGrid")
     List<Role> findByRoleResource_IsOrgResourceTrueOrderByNameAsc();
 
+    @EntityGraph("Role.listGrid")
     List<Role> findByRoleResource_IsProjectResourceTrueOrderByNameAsc();
 
+    @EntityGraph("Role.listGrid")
     List<Role> findByRoleResource_IsFileShareResourceTrueOrderByNameAsc();
 
+    @EntityGraph("Role.listGrid")
     List<Role> findByRoleResource_IsEmailResourceTrueOrderByNameAsc();
 
+    @EntityGraph("Role.listGrid")
+    List<Role> findAll(Sort sort);
+
+    // rows written before the search column existed, cut to the column length like the entity
+    @Modifying
+    @Query("update Role r set r.searchText = substring(lower(concat(" +
+            "coalesce(r.name, ''), '|', coalesce(r.description, '')), 1, " + AbstractEntity.SEARCH_TEXT_LENGTH + ") " +
+            "where r.searchText is null")
+    int fillMissingSearchText();
+
+    @EntityGraph("Role.editForm")
+    Optional<Role> findWithAssignmentsById(Integer id);
+
     List<Role> findByPersons_Id(Integer id);
 
     Optional<Role> findFirstByName(String name);
 
+    List<Role> findByNameIn(Collection<String> names);
+
+    @Query("select r.id, r.name from Role r where r.roleResource.isOrgResource = true")
+    List<Object[]> findAllOrgRoleIdsAndNames();
+
+    @Query("select r.name, r.id from Role r order by r.id")
+    List<Object[]> findAllNamesAndIds();
+
+    // the values of the roles derived from AD groups
+    @Query("select r.name, r.id, r.description, r.isAdminRole, rr.id from Role r left join r.roleResource rr " +
+            "order by r.id")
+    List<Object[]> findAllNamesAndDerivedValues();
+
     long countByRoleResource_IsOrgResourceTrue();
 
     long countByRoleResource_IsProjectResourceTrue();
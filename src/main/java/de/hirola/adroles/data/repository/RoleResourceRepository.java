@@ -3,24 +3,37 @@ package de.hirola.adroles.data.repository;
 import de.hirola.adroles.data.entity.RoleResource;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+// the results are kept in the query cache, hibernate invalidates them on every change of a resource
 public interface RoleResourceRepository extends JpaRepository<RoleResource, Integer> {
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     @Query("select r from RoleResource r " +
             "where r.isOrgResource = false " +
             "and r.isProjectResource = false and r.isFileShareResource = false and r.isEmailResource = false")
     Optional<RoleResource> getDefaultResource();
 
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     @Query("select r from RoleResource r where r.isOrgResource = true")
     Optional<RoleResource> getOrgResource();
 
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     @Query("select r from RoleResource r where r.isProjectResource = true")
     Optional<RoleResource> getProjResource();
 
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     @Query("select r from RoleResource r where r.isFileShareResource = true")
     Optional<RoleResource> getFileShareResource();
 
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     @Query("select r from RoleResource r where r.isEmailResource = true")
     Optional<RoleResource> getEmailResource();
+
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<RoleResource> findAll();
 }
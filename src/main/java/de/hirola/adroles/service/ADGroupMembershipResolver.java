@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.data.entity.ADGroup;
+import de.hirola.adroles.data.entity.ADUser;
+import de.hirola.adroles.data.repository.ADGroupRepository;
+
+import java.util.*;
+
+/**
+ * Resolves the (direct) AD groups of AD users from an in-memory index.
+ * <p>
+ * The memberships are written by the group import. All memberships are loaded
+ * with one query, the lookups for single users are served from the index,
+ * there is no further request to the AD or the database.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public class ADGroupMembershipResolver {
+    private final Map<Integer, List<ADGroup>> adGroupsByMemberId;
+
+    private ADGroupMembershipResolver(Map<Integer, List<ADGroup>> adGroupsByMemberId) {
+        this.adGroupsByMemberId = adGroupsByMemberId;
+    }
+
+    /**
+     * Load the imported memberships and build the index.
+     *
+     * @param adGroupRepository to load the memberships
+     * @return the resolver with the index for all users
+     */
+    public static ADGroupMembershipResolver load(ADGroupRepository adGroupRepository) {
+        Map<Integer, List<ADGroup>> adGroupsByMemberId = new HashMap<>();
+        for (Object[] row : adGroupRepository.findAllMemberIdsAndGroups()) {
+            adGroupsByMemberId.computeIfAbsent((Integer) row[0], key -> new ArrayList<>()).add((ADGroup) row[1]);
+        }
+        return new ADGroupMembershipResolver(adGroupsByMemberId);
+    }
+
+    /**
+     * Get the groups of the user, the user must be a direct member of the groups.
+     *
+     * @param adUser for which the groups are searched
+     * @return the imported groups of the user, can be empty
+     */
+    public List<ADGroup> getADGroups(ADUser adUser) {
+        if (adUser == null || adUser.getId() == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(adGroupsByMemberId.getOrDefault(adUser.getId(), Collections.emptyList()));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.data.repository.ADGroupNestingRepository;
+import de.hirola.adroles.data.repository.ADGroupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Manages the nesting of AD groups and its transitive closure.
+ * <p>
+ * The closure contains for every group all directly or indirectly nested groups and the group itself,
+ * so the effective groups of a user and the effective members of a group are single queries.
+ * After a change of the nesting only the groups containing a changed group are computed again.
+ * Cycles in the nesting are allowed.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class ADGroupNestingService {
+    private static final int CHUNK_SIZE = 500;
+    private final Logger logger = LoggerFactory.getLogger(ADGroupNestingService.class);
+    private final ADGroupRepository adGroupRepository;
+    private final ADGroupNestingRepository adGroupNestingRepository;
+
+    public ADGroupNestingService(ADGroupRepository adGroupRepository,
+                                 ADGroupNestingRepository adGroupNestingRepository) {
+        this.adGroupRepository = adGroupRepository;
+        this.adGroupNestingRepository = adGroupNestingRepository;
+    }
+
+    /**
+     * Update the direct nesting of the groups, only the difference is written.
+     * Member DNs without an imported group are ignored.
+     *
+     * @param memberDNsByGroupId the distinguished names of the members for every group read from AD
+     * @return the ids of the groups with changed member groups
+     */
+    public Set<Integer> updateNesting(Map<Integer, List<String>> memberDNsByGroupId) {
+        Set<Integer> changedGroupIds = new HashSet<>();
+        if (memberDNsByGroupId.isEmpty()) {
+            return changedGroupIds;
+        }
+        // the distinguished names in the AD are not case-sensitive
+        Map<String, Integer> adGroupIdsByDN = new HashMap<>();
+        for (Object[] row : adGroupRepository.findAllDistinguishedNamesAndIds()) {
+            adGroupIdsByDN.put(((String) row[0]).toLowerCase(Locale.ROOT), (Integer) row[1]);
+        }
+        Map<Integer, Set<Integer>> existingMemberGroupIds = adGroupNestingRepository.findAllMemberGroupIds();
+        List<Integer[]> newEdges = new ArrayList<>();
+        List<Integer[]> removedEdges = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> entry : memberDNsByGroupId.entrySet()) {
+            Integer adGroupId = entry.getKey();
+            Set<Integer> memberGroupIds = new HashSet<>();
+            for (String memberDN : entry.getValue()) {
+                Integer memberGroupId = adGroupIdsByDN.get(memberDN.toLowerCase(Locale.ROOT));
+                if (memberGroupId != null) {
+                    memberGroupIds.add(memberGroupId);
+                }
+            }
+            Set<Integer> existingIds = existingMemberGroupIds.getOrDefault(adGroupId, Collections.emptySet());
+            for (Integer memberGroupId : memberGroupIds) {
+                if (!existingIds.contains(memberGroupId)) {
+                    newEdges.add(new Integer[]{ adGroupId, memberGroupId });
+                    changedGroupIds.add(adGroupId);
+                }
+            }
+            for (Integer memberGroupId : existingIds) {
+                if (!memberGroupIds.contains(memberGroupId)) {
+                    removedEdges.add(new Integer[]{ adGroupId, memberGroupId });
+                    changedGroupIds.add(adGroupId);
+                }
+            }
+        }
+        adGroupNestingRepository.insertNesting(newEdges);
+        adGroupNestingRepository.deleteNesting(removedEdges);
+        logger.debug(newEdges.size() + " group nestings added, " + removedEdges.size() + " group nestings removed.");
+        return changedGroupIds;
+    }
+
+    /**
+     * Compute the closure again for all groups containing one of the changed groups
+     * and for the groups without closure (new groups). Call this after {@link #updateNesting(Map)},
+     * the groups containing a changed group are taken from the (not yet updated) closure.
+     *
+     * @param changedGroupIds ids of the groups with changed member groups
+     */
+    public void refreshClosure(Collection<Integer> changedGroupIds) {
+        Set<Integer> affectedGroupIds = adGroupNestingRepository.findAncestorIds(changedGroupIds);
+        affectedGroupIds.addAll(adGroupNestingRepository.findIdsWithoutClosure());
+        updateClosure(affectedGroupIds);
+    }
+
+    /**
+     * Compute the closure again for all groups, e.g. after a full import.
+     */
+    public void rebuildClosure() {
+        List<Object[]> rows = adGroupRepository.findAllDistinguishedNamesAndIds();
+        Set<Integer> adGroupIds = new HashSet<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            adGroupIds.add((Integer) row[1]);
+        }
+        updateClosure(adGroupIds);
+    }
+
+    /**
+     * Remove the nesting and the closure of the group and update the closure
+     * of the groups containing the group. Call this before the group is deleted.
+     *
+     * @param adGroupId id of the group
+     */
+    public void removeADGroup(Integer adGroupId) {
+        Set<Integer> ancestorIds = adGroupNestingRepository.findAncestorIds(List.of(adGroupId));
+        ancestorIds.remove(adGroupId);
+        adGroupNestingRepository.deleteByADGroupId(adGroupId);
+        updateClosure(ancestorIds);
+    }
+
+    private void updateClosure(Set<Integer> affectedGroupIds) {
+        if (affectedGroupIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, Set<Integer>> memberGroupIdsByGroupId = adGroupNestingRepository.findAllMemberGroupIds();
+        int added = 0, removed = 0;
+        List<Integer> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (Iterator<Integer> iterator = affectedGroupIds.iterator(); iterator.hasNext(); ) {
+            chunk.add(iterator.next());
+            if (chunk.size() < CHUNK_SIZE && iterator.hasNext()) {
+                continue;
+            }
+            Map<Integer, Set<Integer>> existingNestedGroupIds = adGroupNestingRepository.findNestedGroupIds(chunk);
+            List<Integer[]> newEdges = new ArrayList<>();
+            List<Integer[]> removedEdges = new ArrayList<>();
+            for (Integer adGroupId : chunk) {
+                Set<Integer> nestedGroupIds = collectNestedGroupIds(adGroupId, memberGroupIdsByGroupId);
+                Set<Integer> existingIds = existingNestedGroupIds.getOrDefault(adGroupId, Collections.emptySet());
+                for (Integer nestedGroupId : nestedGroupIds) {
+                    if (!existingIds.contains(nestedGroupId)) {
+                        newEdges.add(new Integer[]{ adGroupId, nestedGroupId });
+                    }
+                }
+                for (Integer nestedGroupId : existingIds) {
+                    if (!nestedGroupIds.contains(nestedGroupId)) {
+                        removedEdges.add(new Integer[]{ adGroupId, nestedGroupId });
+                    }
+                }
+            }
+            adGroupNestingRepository.insertClosure(newEdges);
+            adGroupNestingRepository.deleteClosure(removedEdges);
+            added += newEdges.size();
+            removed += removedEdges.size();
+            chunk.clear();
+        }
+        logger.debug("Closure of " + affectedGroupIds.size() + " groups updated: "
+                + added + " rows added, " + removed + " rows removed.");
+    }
+
+    // breadth-first search, every group is visited once - also with cycles
+    private Set<Integer> collectNestedGroupIds(Integer adGroupId, Map<Integer, Set<Integer>> memberGroupIdsByGroupId) {
+        Set<Integer> nestedGroupIds = new HashSet<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        nestedGroupIds.add(adGroupId);
+        queue.add(adGroupId);
+        while (!queue.isEmpty()) {
+            for (Integer memberGroupId : memberGroupIdsByGroupId.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if (nestedGroupIds.add(memberGroupId)) {
+                    queue.add(memberGroupId);
+                }
+            }
+        }
+        return nestedGroupIds;
+    }
+}
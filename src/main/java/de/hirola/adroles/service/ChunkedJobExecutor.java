@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.data.repository.JobHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs the work of a job over a list of objects in chunks.
+ * <p>
+ * Every chunk is committed in its own transaction together with the checkpoint of the job
+ * (the highest id of the chunk), so the persistence context holds only the objects of one chunk
+ * and a cancellation or an error keeps the committed chunks. The next run of a cancelled
+ * or failed job continues after the checkpoint.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class ChunkedJobExecutor {
+    private final Logger logger = LoggerFactory.getLogger(ChunkedJobExecutor.class);
+    private final JobHistoryRepository jobHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Value("${adroles.jobs.chunkSize:500}")
+    private int chunkSize;
+
+    public ChunkedJobExecutor(JobHistoryRepository jobHistoryRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.jobHistoryRepository = jobHistoryRepository;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Process the objects in chunks in ascending order of the ids.
+     * The ids up to the checkpoint of the last unfinished run are skipped.
+     *
+     * @param job running the work
+     * @param ids of all objects to process
+     * @param chunkWork processes the objects with the ids of a chunk, called in a transaction
+     * @return the number of processed objects of this run
+     */
+    public int execute(JobContext job, Collection<Integer> ids, Consumer<List<Integer>> chunkWork) {
+        return execute(job, ids, true, chunkWork);
+    }
+
+    /**
+     * Process the objects in chunks in ascending order of the ids.
+     *
+     * @param job running the work
+     * @param ids of all objects to process
+     * @param isRestartable false, if the ids may differ between the runs (e.g. a selection),
+     *                      the job starts from the beginning and saves no checkpoint
+     * @param chunkWork processes the objects with the ids of a chunk, called in a transaction
+     * @return the number of processed objects of this run
+     */
+    public int execute(JobContext job, Collection<Integer> ids, boolean isRestartable,
+                       Consumer<List<Integer>> chunkWork) {
+        Integer resumeAfterId = isRestartable ? job.getResumeAfterId() : null;
+        List<Integer> pendingIds = ids.stream()
+                .filter(id -> resumeAfterId == null || id > resumeAfterId)
+                .sorted()
+                .toList();
+        if (pendingIds.size() < ids.size()) {
+            logger.debug("The job \"" + job.getJobType() + "\" continues after id " + resumeAfterId + ", "
+                    + (ids.size() - pendingIds.size()) + " objects were processed by the last run.");
+        }
+        int size = Math.max(1, chunkSize);
+        int done = ids.size() - pendingIds.size();
+        for (int from = 0; from < pendingIds.size(); from += size) {
+            job.checkCancelled();
+            job.setProgress(done, ids.size());
+            List<Integer> chunk = pendingIds.subList(from, Math.min(from + size, pendingIds.size()));
+            Integer checkpointId = chunk.get(chunk.size() - 1);
+            transactionTemplate.executeWithoutResult(status -> {
+                chunkWork.accept(chunk);
+                if (isRestartable && job.getJobHistoryId() != null) {
+                    jobHistoryRepository.updateCheckpoint(job.getJobHistoryId(), checkpointId);
+                }
+                if (!status.isNewTransaction()) {
+                    // called in a running transaction, the chunk is committed with it
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            });
+            if (isRestartable) {
+                job.setCheckpointId(checkpointId);
+            }
+            done += chunk.size();
+        }
+        job.setProgress(ids.size(), ids.size());
+        return pendingIds.size();
+    }
+}
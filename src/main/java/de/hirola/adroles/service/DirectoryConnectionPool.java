@@ -0,0 +1,287 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.entity.ActiveDirectory;
+
+import javax.annotation.Nullable;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapContext;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of bound LDAP connections to one Active Directory.
+ * <p>
+ * Connections idle for longer than the validation interval are checked (root DSE read) before they
+ * are handed out again, connections idle for longer than the idle timeout are closed by a periodic task.
+ * The pool also owns an executor for running queries in parallel (the next page of a search,
+ * the ranges of large attributes), it has as many threads as the pool has connections.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public class DirectoryConnectionPool {
+    private static final long VALIDATION_INTERVAL_MILLIS = 30000;
+    private final Hashtable<String, String> environment;
+    private final long idleTimeoutMillis;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idleConnections = new ArrayDeque<>(); // the last used first
+    private final ScheduledExecutorService executor;
+    private volatile boolean isClosed;
+
+    private record IdleConnection(LdapContext context, long idleSince) {}
+
+    /**
+     * Create a pool for the Active Directory. The connection settings are copied,
+     * create a new pool if the settings have been changed.
+     *
+     * @param activeDirectory with the connection settings
+     * @param maxSize max. number of open connections, at least 2
+     * @param idleTimeoutMillis time after which an unused connection is closed
+     */
+    public DirectoryConnectionPool(ActiveDirectory activeDirectory, int maxSize, long idleTimeoutMillis) {
+        // a paged search holds one connection, the ranges of large attributes may use the free ones
+        int poolSize = Math.max(2, maxSize > 0 ? maxSize : Runtime.getRuntime().availableProcessors());
+        environment = createEnvironment(activeDirectory);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        permits = new Semaphore(poolSize, true);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "ldap-query-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // close the unused connections also if the pool is not used anymore
+        long evictionInterval = Math.max(1000, idleTimeoutMillis / 2);
+        executor.scheduleWithFixedDelay(() -> {
+            synchronized (idleConnections) {
+                evictIdleConnections();
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get a connection from the pool or open a new connection. Waits for a free connection,
+     * if all connections are in use. Every connection must be given back with
+     * {@link #release(LdapContext)} or {@link #invalidate(LdapContext)}.
+     *
+     * @return a bound connection
+     * @throws NamingException if there is no free connection or the connection failed
+     */
+    public LdapContext borrow() throws NamingException {
+        if (isClosed) {
+            throw new NamingException("The connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(Global.LDAP_QUERY.TIME_LIMIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new NamingException("There is no free connection to the Active Directory.");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new NamingException("Interrupted while waiting for a connection to the Active Directory.");
+        }
+        return takeConnection();
+    }
+
+    /**
+     * Get a connection from the pool or open a new connection, only if a connection is free.
+     * A connection must be given back as by {@link #borrow()}.
+     *
+     * @return a bound connection or null, if all connections are in use
+     * @throws NamingException if the connection failed
+     */
+    public @Nullable LdapContext tryBorrow() throws NamingException {
+        if (isClosed) {
+            throw new NamingException("The connection pool is closed.");
+        }
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        return takeConnection();
+    }
+
+    /**
+     * Give back a connection, which can be used again.
+     *
+     * @param context the borrowed connection
+     */
+    public void release(LdapContext context) {
+        try {
+            // remove the controls of the last request (e.g. paged results)
+            context.setRequestControls(null);
+            synchronized (idleConnections) {
+                if (!isClosed) {
+                    idleConnections.addFirst(new IdleConnection(context, System.currentTimeMillis()));
+                    return;
+                }
+            }
+            close(context);
+        } catch (NamingException exception) {
+            close(context);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Give back a broken connection, the connection will be closed.
+     *
+     * @param context the borrowed connection
+     */
+    public void invalidate(LdapContext context) {
+        close(context);
+        permits.release();
+    }
+
+    /**
+     * Run a query in the executor of the pool.
+     *
+     * @param query to run
+     * @return the result of the query
+     * @param <T> type of the result
+     * @throws NamingException if the pool is closed
+     */
+    public <T> Future<T> submit(Callable<T> query) throws NamingException {
+        try {
+            return executor.submit(query);
+        } catch (RejectedExecutionException exception) {
+            throw new NamingException("The connection pool is closed.");
+        }
+    }
+
+    /**
+     * Wait for the result of a query started with {@link #submit(Callable)}.
+     *
+     * @param future of the query
+     * @return the result of the query
+     * @param <T> type of the result
+     * @throws NamingException if the query failed or the thread was interrupted
+     */
+    public static <T> T await(Future<T> future) throws NamingException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new NamingException("Interrupted while waiting for the Active Directory.");
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof NamingException namingException) {
+                throw namingException;
+            }
+            NamingException namingException = new NamingException("The query to the Active Directory failed.");
+            namingException.setRootCause(exception.getCause());
+            throw namingException;
+        }
+    }
+
+    /**
+     * Check the connection to the Active Directory with a connection from the pool.
+     *
+     * @return true, if a connection could be established
+     */
+    public boolean verify() {
+        try {
+            LdapContext context = borrow();
+            if (isValid(context)) {
+                release(context);
+                return true;
+            }
+            invalidate(context);
+        } catch (NamingException exception) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Close all idle connections and stop the executor.
+     * Borrowed connections are closed when they are given back.
+     */
+    public void close() {
+        isClosed = true;
+        executor.shutdownNow();
+        synchronized (idleConnections) {
+            for (IdleConnection idleConnection : idleConnections) {
+                close(idleConnection.context());
+            }
+            idleConnections.clear();
+        }
+    }
+
+    // called with an acquired permit, the permit is given back if no connection can be opened
+    private LdapContext takeConnection() throws NamingException {
+        try {
+            while (true) {
+                IdleConnection idleConnection;
+                synchronized (idleConnections) {
+                    evictIdleConnections();
+                    idleConnection = idleConnections.pollFirst();
+                }
+                if (idleConnection == null) {
+                    return new InitialLdapContext(environment, null);
+                }
+                if (System.currentTimeMillis() - idleConnection.idleSince() < VALIDATION_INTERVAL_MILLIS
+                        || isValid(idleConnection.context())) {
+                    return idleConnection.context();
+                }
+                close(idleConnection.context());
+            }
+        } catch (NamingException | RuntimeException exception) {
+            permits.release();
+            throw exception;
+        }
+    }
+
+    // the oldest connections are at the end
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        while (!idleConnections.isEmpty() && now - idleConnections.peekLast().idleSince() > idleTimeoutMillis) {
+            close(idleConnections.pollLast().context());
+        }
+    }
+
+    private boolean isValid(LdapContext context) {
+        try {
+            context.getAttributes("", new String[]{ Global.ADAttributes.DEFAULT_NAMING_CONTEXT });
+            return true;
+        } catch (NamingException exception) {
+            return false;
+        }
+    }
+
+    private void close(LdapContext context) {
+        try {
+            context.close();
+        } catch (NamingException ignored) {
+            // the connection is not used anymore
+        }
+    }
+
+    private static Hashtable<String, String> createEnvironment(ActiveDirectory activeDirectory) {
+        Hashtable<String, String> environment = new Hashtable<>();
+        String protocol = activeDirectory.useSecureConnection() ? "ldaps://" : "ldap://";
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        environment.put(Context.PROVIDER_URL, protocol + activeDirectory.getIPAddress()
+                + ":" + (int) activeDirectory.getPort());
+        environment.put(Context.SECURITY_AUTHENTICATION, "simple");
+        environment.put(Context.SECURITY_PRINCIPAL, activeDirectory.getConnectionUserName());
+        environment.put(Context.SECURITY_CREDENTIALS, activeDirectory.getEncryptedConnectionPassword());
+        environment.put(Context.REFERRAL, "ignore");
+        // the SID must be read as byte array
+        environment.put("java.naming.ldap.attributes.binary", Global.ADAttributes.SID);
+        environment.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(Global.LDAP_QUERY.TIME_LIMIT_MILLIS));
+        environment.put("com.sun.jndi.ldap.read.timeout", String.valueOf(Global.LDAP_QUERY.TIME_LIMIT_MILLIS));
+        return environment;
+    }
+}
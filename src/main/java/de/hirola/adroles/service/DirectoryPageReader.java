@@ -0,0 +1,407 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.Global;
+
+import javax.annotation.Nullable;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.BasicControl;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Reads objects from the Active Directory page by page (RFC 2696 simple paged results).
+ * <p>
+ * Every page is handed to the consumer while the next page is requested, so the memory
+ * needed for an import depends on the page size and not on the size of the directory.
+ * The connections are taken from the {@link DirectoryConnectionPool}.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public class DirectoryPageReader {
+    /**
+     * Pseudo attribute added to every result, contains the distinguished name of the object.
+     */
+    public static final String RESULT_NAME_ATTRIBUTE = "resultDistinguishedName";
+    private static final String RANGE_OPTION = ";range=";
+    private final DirectoryConnectionPool connectionPool;
+    private final int pageSize;
+
+    private record Page(List<Attributes> entries, @Nullable byte[] cookie) {}
+
+    public DirectoryPageReader(DirectoryConnectionPool connectionPool, int pageSize) {
+        this.connectionPool = connectionPool;
+        this.pageSize = pageSize > 0 ? pageSize : Global.LDAP_QUERY.DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * Search the default naming context of the domain and hand the results page by page to the consumer.
+     *
+     * @param filter LDAP search filter
+     * @param attributes to load for every object
+     * @param pageConsumer called once for every (not empty) page
+     * @return the number of objects read
+     * @throws NamingException if the connection or the search failed
+     */
+    public int read(String filter, String[] attributes, Consumer<List<Attributes>> pageConsumer)
+            throws NamingException {
+        return search(false, filter, attributes, pageConsumer);
+    }
+
+    /**
+     * Search the deleted objects container of the domain (tombstones) and hand the results
+     * page by page to the consumer. The account used for the connection needs the permission
+     * to list the deleted objects.
+     *
+     * @param filter LDAP search filter
+     * @param attributes to load for every object
+     * @param pageConsumer called once for every (not empty) page
+     * @return the number of objects read
+     * @throws NamingException if the connection or the search failed
+     */
+    public int readDeleted(String filter, String[] attributes, Consumer<List<Attributes>> pageConsumer)
+            throws NamingException {
+        return search(true, filter, attributes, pageConsumer);
+    }
+
+    /**
+     * Read the highest update sequence number committed by the domain controller.
+     * Objects changed after the call have a greater <i>uSNChanged</i> value.
+     *
+     * @return the highest committed USN of the domain controller
+     * @throws NamingException if the connection failed or the value could not be read
+     */
+    public long readHighestCommittedUSN() throws NamingException {
+        LdapContext context = connectionPool.borrow();
+        String usn;
+        try {
+            Attributes rootDSE = context.getAttributes("",
+                    new String[]{ Global.ADAttributes.HIGHEST_COMMITTED_USN });
+            usn = getString(rootDSE, Global.ADAttributes.HIGHEST_COMMITTED_USN);
+        } catch (NamingException exception) {
+            connectionPool.invalidate(context);
+            throw exception;
+        }
+        connectionPool.release(context);
+        try {
+            return Long.parseLong(usn);
+        } catch (NumberFormatException exception) {
+            throw new NamingException("The highest committed USN could not be determined.");
+        }
+    }
+
+    /**
+     * Restrict a filter to the objects changed after the given USN.
+     *
+     * @param filter LDAP search filter
+     * @param usn of the last sync, 0 for all objects
+     * @return the filter for the changed objects
+     */
+    public static String changedSince(String filter, long usn) {
+        if (usn <= 0) {
+            return filter;
+        }
+        return "(&" + filter + "(" + Global.ADAttributes.USN_CHANGED + ">=" + (usn + 1) + "))";
+    }
+
+    private int search(boolean deletedObjects, String filter, String[] attributes,
+                       Consumer<List<Attributes>> pageConsumer) throws NamingException {
+        // the paged search must use the same connection for all pages
+        LdapContext context = connectionPool.borrow();
+        Future<Page> nextPage = null;
+        try {
+            String searchBase = getDefaultNamingContext(context);
+            if (deletedObjects) {
+                searchBase = Global.LDAP_QUERY.DELETED_OBJECTS_CONTAINER + searchBase;
+            }
+            SearchControls searchControls = new SearchControls();
+            searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+            searchControls.setReturningAttributes(attributes);
+            searchControls.setCountLimit(0); // no limit, the server sends the objects in pages
+            searchControls.setTimeLimit(Global.LDAP_QUERY.TIME_LIMIT_MILLIS);
+            String base = searchBase;
+            int count = 0;
+            nextPage = connectionPool.submit(() ->
+                    readPage(context, base, filter, searchControls, deletedObjects, null));
+            while (nextPage != null) {
+                Page page = DirectoryConnectionPool.await(nextPage);
+                nextPage = null;
+                // uses the connection of the search, before the next page is requested
+                completeRangedAttributes(context, page.entries());
+                if (page.cookie() != null && page.cookie().length > 0) {
+                    // request the next page while this page is processed
+                    nextPage = connectionPool.submit(() ->
+                            readPage(context, base, filter, searchControls, deletedObjects, page.cookie()));
+                }
+                if (!page.entries().isEmpty()) {
+                    count += page.entries().size();
+                    pageConsumer.accept(page.entries());
+                }
+            }
+            connectionPool.release(context);
+            return count;
+        } catch (NamingException | RuntimeException exception) {
+            if (nextPage != null) {
+                nextPage.cancel(true);
+            }
+            // the state of the paged search is unknown
+            connectionPool.invalidate(context);
+            throw exception;
+        }
+    }
+
+    private Page readPage(LdapContext context, String searchBase, String filter, SearchControls searchControls,
+                          boolean deletedObjects, @Nullable byte[] cookie) throws NamingException {
+        try {
+            context.setRequestControls(createControls(deletedObjects, cookie));
+        } catch (IOException exception) {
+            NamingException namingException = new NamingException("Could not create the paged results control.");
+            namingException.setRootCause(exception);
+            throw namingException;
+        }
+        List<Attributes> entries = new ArrayList<>(pageSize);
+        NamingEnumeration<SearchResult> results = context.search(searchBase, filter, searchControls);
+        try {
+            while (results.hasMore()) {
+                SearchResult result = results.next();
+                Attributes resultAttributes = result.getAttributes();
+                // the distinguished name is needed to load the remaining values of large attributes
+                resultAttributes.put(RESULT_NAME_ATTRIBUTE, result.getNameInNamespace());
+                entries.add(resultAttributes);
+            }
+        } finally {
+            results.close();
+        }
+        return new Page(entries, getCookie(context.getResponseControls()));
+    }
+
+    public static String getString(Attributes attributes, String name) {
+        try {
+            Attribute attribute = attributes.get(name);
+            if (attribute == null || attribute.size() == 0) {
+                return "";
+            }
+            Object value = attribute.get();
+            return value == null ? "" : value.toString();
+        } catch (NamingException exception) {
+            return "";
+        }
+    }
+
+    @Nullable
+    public static byte[] getBytes(Attributes attributes, String name) {
+        try {
+            Attribute attribute = attributes.get(name);
+            if (attribute == null || attribute.size() == 0) {
+                return null;
+            }
+            Object value = attribute.get();
+            return value instanceof byte[] bytes ? bytes : null;
+        } catch (NamingException exception) {
+            return null;
+        }
+    }
+
+    public static List<String> getStrings(Attributes attributes, String name) {
+        List<String> values = new ArrayList<>();
+        try {
+            Attribute attribute = attributes.get(name);
+            if (attribute == null) {
+                return values;
+            }
+            NamingEnumeration<?> enumeration = attribute.getAll();
+            while (enumeration.hasMore()) {
+                Object value = enumeration.next();
+                if (value != null) {
+                    values.add(value.toString());
+                }
+            }
+        } catch (NamingException exception) {
+            return values;
+        }
+        return values;
+    }
+
+    /**
+     * Convert the binary SID of an object to the string format (S-1-5-...).
+     *
+     * @param sid as byte array
+     * @return the SID as string or an empty string, if the SID is not valid
+     */
+    public static String convertSidToString(@Nullable byte[] sid) {
+        try {
+            if (sid == null) {
+                return "";
+            }
+            if (sid.length < 8 || sid.length % 4 != 0) {
+                return "";
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("S-").append(sid[0]);
+            int c = sid[1];
+            ByteBuffer bb = ByteBuffer.wrap(sid);
+            sb.append("-").append(bb.getLong() & 0XFFFFFFFFFFFFL);
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < c; i++) {
+                sb.append("-").append((long) bb.getInt() & 0xFFFFFFFFL);
+            }
+            return sb.toString();
+        } catch (Exception exception) {
+            return "";
+        }
+    }
+
+    // the server returns large multi-valued attributes (e.g. "member;range=0-1499") in ranges,
+    // the remaining values are read with the connection of the search and in parallel with the connections
+    // which are free now, so a pool used up by other imports does not block the search
+    private void completeRangedAttributes(LdapContext searchContext, List<Attributes> page) throws NamingException {
+        List<Attributes> rangeTargets = new ArrayList<>();
+        List<Attribute> rangedAttributes = new ArrayList<>();
+        for (Attributes attributes : page) {
+            List<String> rangedIds = new ArrayList<>();
+            NamingEnumeration<String> ids = attributes.getIDs();
+            while (ids.hasMore()) {
+                String id = ids.next();
+                if (id.contains(RANGE_OPTION)) {
+                    rangedIds.add(id);
+                }
+            }
+            for (String rangedId : rangedIds) {
+                rangedAttributes.add(attributes.remove(rangedId));
+                rangeTargets.add(attributes);
+            }
+        }
+        if (rangedAttributes.isEmpty()) {
+            return;
+        }
+        // the controls of the paged search are set again with the next page
+        searchContext.setRequestControls(null);
+        Attribute[] completedAttributes = new Attribute[rangedAttributes.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+        List<LdapContext> contexts = new ArrayList<>();
+        List<Future<Void>> rangeQueries = new ArrayList<>();
+        boolean isCompleted = false;
+        try {
+            LdapContext context;
+            while (contexts.size() < rangedAttributes.size() - 1 && (context = connectionPool.tryBorrow()) != null) {
+                contexts.add(context);
+                LdapContext queryContext = context;
+                rangeQueries.add(connectionPool.submit(() -> {
+                    readRanges(queryContext, rangeTargets, rangedAttributes, completedAttributes, nextIndex);
+                    return null;
+                }));
+            }
+            readRanges(searchContext, rangeTargets, rangedAttributes, completedAttributes, nextIndex);
+            for (Future<Void> rangeQuery : rangeQueries) {
+                DirectoryConnectionPool.await(rangeQuery);
+            }
+            isCompleted = true;
+        } finally {
+            for (Future<Void> rangeQuery : rangeQueries) {
+                rangeQuery.cancel(true);
+            }
+            for (LdapContext context : contexts) {
+                if (isCompleted) {
+                    connectionPool.release(context);
+                } else {
+                    connectionPool.invalidate(context);
+                }
+            }
+        }
+        for (int i = 0; i < completedAttributes.length; i++) {
+            rangeTargets.get(i).put(completedAttributes[i]);
+        }
+    }
+
+    // takes the next attribute until all attributes are read
+    private void readRanges(LdapContext context, List<Attributes> rangeTargets, List<Attribute> rangedAttributes,
+                            Attribute[] completedAttributes, AtomicInteger nextIndex) throws NamingException {
+        int index;
+        while ((index = nextIndex.getAndIncrement()) < rangedAttributes.size()) {
+            String distinguishedName = getString(rangeTargets.get(index), RESULT_NAME_ATTRIBUTE);
+            completedAttributes[index] = readAllRanges(context, distinguishedName, rangedAttributes.get(index));
+        }
+    }
+
+    private Attribute readAllRanges(LdapContext context, String distinguishedName, Attribute rangedAttribute)
+            throws NamingException {
+        String rangedId = rangedAttribute.getID();
+        String name = rangedId.substring(0, rangedId.indexOf(';'));
+        Attribute attribute = new BasicAttribute(name);
+        while (rangedAttribute != null) {
+            NamingEnumeration<?> values = rangedAttribute.getAll();
+            while (values.hasMore()) {
+                attribute.add(values.next());
+            }
+            rangedId = rangedAttribute.getID();
+            if (rangedId.endsWith("-*")) {
+                break; // last range
+            }
+            int nextStart = Integer.parseInt(rangedId.substring(rangedId.lastIndexOf('-') + 1)) + 1;
+            Attributes nextAttributes = context.getAttributes(new LdapName(distinguishedName),
+                    new String[]{ name + RANGE_OPTION + nextStart + "-*" });
+            rangedAttribute = null;
+            NamingEnumeration<? extends Attribute> nextRanges = nextAttributes.getAll();
+            if (nextRanges.hasMore()) {
+                rangedAttribute = nextRanges.next();
+            }
+        }
+        return attribute;
+    }
+
+    private Control[] createControls(boolean deletedObjects, @Nullable byte[] cookie) throws IOException {
+        Control pagedResultsControl = new PagedResultsControl(pageSize, cookie, Control.CRITICAL);
+        if (deletedObjects) {
+            return new Control[]{ pagedResultsControl,
+                    new BasicControl(Global.LDAP_QUERY.SHOW_DELETED_CONTROL_OID, Control.CRITICAL, null) };
+        }
+        return new Control[]{ pagedResultsControl };
+    }
+
+    private String getDefaultNamingContext(LdapContext context) throws NamingException {
+        Attributes rootDSE = context.getAttributes("", new String[]{ Global.ADAttributes.DEFAULT_NAMING_CONTEXT });
+        String namingContext = getString(rootDSE, Global.ADAttributes.DEFAULT_NAMING_CONTEXT);
+        if (namingContext.isEmpty()) {
+            throw new NamingException("The default naming context of the domain could not be determined.");
+        }
+        return namingContext;
+    }
+
+    @Nullable
+    private byte[] getCookie(@Nullable Control[] controls) {
+        if (controls == null) {
+            return null;
+        }
+        for (Control control: controls) {
+            if (control instanceof PagedResultsResponseControl pagedResultsResponseControl) {
+                return pagedResultsResponseControl.getCookie();
+            }
+        }
+        return null;
+    }
+}
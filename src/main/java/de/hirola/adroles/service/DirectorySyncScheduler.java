@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.entity.ActiveDirectory;
+import de.hirola.adroles.util.ServiceResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Syncs users, groups and roles with the Active Directory by the schedule (cron expression)
+ * of the {@link ActiveDirectory}, e.g. every night.
+ * <p>
+ * Every start is delayed by a random time up to the max. jitter of the {@link ActiveDirectory}.
+ * The sync runs as job of the {@link JobService}, a start is skipped if the last sync or an
+ * interactive import is still running.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class DirectorySyncScheduler {
+    private final Logger logger = LoggerFactory.getLogger(DirectorySyncScheduler.class);
+    private final IdentityService identityService;
+    private final JobService jobService;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private ScheduledFuture<?> nextSync;
+
+    public DirectorySyncScheduler(IdentityService identityService, JobService jobService) {
+        this.identityService = identityService;
+        this.jobService = jobService;
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("adroles-sync-");
+        taskScheduler.setDaemon(true);
+        taskScheduler.initialize();
+    }
+
+    /**
+     * Plan the next sync by the schedule of the Active Directory.
+     * Call this after the schedule has been changed.
+     */
+    @PostConstruct
+    public synchronized void reschedule() {
+        if (nextSync != null) {
+            nextSync.cancel(false);
+            nextSync = null;
+        }
+        ActiveDirectory activeDirectory = identityService.getActiveDirectory();
+        String syncCron = activeDirectory.getSyncCron();
+        if (syncCron == null || syncCron.isBlank()) {
+            logger.debug("There is no schedule for the sync with the Active Directory.");
+            return;
+        }
+        if (!CronExpression.isValidExpression(syncCron)) {
+            logger.debug("The schedule \"" + syncCron + "\" for the sync with the Active Directory is invalid.");
+            return;
+        }
+        LocalDateTime nextSyncTime = CronExpression.parse(syncCron).next(LocalDateTime.now());
+        if (nextSyncTime == null) {
+            return;
+        }
+        long maxJitterSeconds = activeDirectory.getSyncMaxJitterMinutes() * 60L;
+        if (maxJitterSeconds > 0) {
+            nextSyncTime = nextSyncTime.plusSeconds(ThreadLocalRandom.current().nextLong(maxJitterSeconds + 1));
+        }
+        nextSync = taskScheduler.schedule(this::startSync, nextSyncTime.atZone(ZoneId.systemDefault()).toInstant());
+        logger.debug("Next sync with the Active Directory at " + nextSyncTime + ".");
+    }
+
+    public boolean isSyncRunning() {
+        return jobService.isActive(Global.JOB_TYPE.SCHEDULED_SYNC);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        taskScheduler.shutdown();
+    }
+
+    private void startSync() {
+        try {
+            // rejected by the job service, if the last sync or a conflicting import is still running
+            // the result is saved in the job history, there is no listener
+            ServiceResult serviceResult = jobService.submit(Global.JOB_TYPE.SCHEDULED_SYNC,
+                    Global.LOGGING_VALUES.SCHEDULER_USER_STRING, this::sync, event -> {});
+            if (!serviceResult.operationSuccessful) {
+                logger.debug("Scheduled sync skipped: " + serviceResult.resultMessage);
+            }
+        } finally {
+            reschedule();
+        }
+    }
+
+    // the users must be imported before the groups, the memberships are linked by the users
+    private ServiceResult sync(JobContext job) {
+        if (!identityService.isConnected()) {
+            return new ServiceResult(false, "Scheduled sync failed. There is no connection to the Active Directory.");
+        }
+        StringBuilder resultMessage = new StringBuilder();
+        ServiceResult serviceResult = identityService.updateUserFromAD(job);
+        resultMessage.append(serviceResult.resultMessage);
+        if (serviceResult.operationSuccessful) {
+            job.checkCancelled();
+            serviceResult = identityService.updateGroupsFromAD(job);
+            resultMessage.append(", ").append(serviceResult.resultMessage);
+        }
+        if (serviceResult.operationSuccessful) {
+            job.checkCancelled();
+            serviceResult = identityService.updateRolesFromGroups(job);
+            resultMessage.append(", ").append(serviceResult.resultMessage);
+        }
+        logger.debug("Scheduled sync: " + resultMessage);
+        return new ServiceResult(serviceResult.operationSuccessful, resultMessage.toString());
+    }
+}
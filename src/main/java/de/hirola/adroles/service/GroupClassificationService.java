@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.entity.ClassificationRule;
+import de.hirola.adroles.data.repository.ClassificationRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Loads the rules to classify AD groups from the database and provides them compiled
+ * as {@link GroupClassifier}.
+ * <p>
+ * The default rules (the former fixed texts) are created, if there are no rules.
+ * Changes of the rules through this service are used immediately, changes in the database
+ * (e.g. by SQL) are used from the next import or classification job. Running jobs keep
+ * the rules they started with.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class GroupClassificationService {
+    private final Logger logger = LoggerFactory.getLogger(GroupClassificationService.class);
+    private final ClassificationRuleRepository classificationRuleRepository;
+    private volatile GroupClassifier groupClassifier = new GroupClassifier(defaultRules());
+    // the values of the compiled rules, to find changes in the database
+    private volatile List<RuleValues> compiledRuleValues = List.of();
+
+    private record RuleValues(Integer id, int ruleType, String pattern, int target, int priority) {
+        static RuleValues of(ClassificationRule rule) {
+            return new RuleValues(rule.getId(), rule.getRuleType(), rule.getPattern(),
+                    rule.getTarget(), rule.getPriority());
+        }
+    }
+
+    public GroupClassificationService(ClassificationRuleRepository classificationRuleRepository) {
+        this.classificationRuleRepository = classificationRuleRepository;
+    }
+
+    public GroupClassifier getGroupClassifier() {
+        return groupClassifier;
+    }
+
+    public List<ClassificationRule> findAllRules() {
+        return classificationRuleRepository.findAllByOrderByPriorityAscIdAsc();
+    }
+
+    public boolean saveRule(ClassificationRule rule) {
+        if (rule == null) {
+            logger.debug("Can not saved a zero classification rule.");
+            return false;
+        }
+        try {
+            classificationRuleRepository.save(rule);
+            return reload();
+        } catch (Exception exception) {
+            logger.debug("Error while saving classification rule \"" + rule.getPattern() + "\"", exception);
+            return false;
+        }
+    }
+
+    public boolean deleteRule(ClassificationRule rule) {
+        if (rule == null) {
+            return false;
+        }
+        try {
+            classificationRuleRepository.delete(rule);
+            return reload();
+        } catch (Exception exception) {
+            logger.debug("Error while deleting classification rule \"" + rule.getPattern() + "\"", exception);
+            return false;
+        }
+    }
+
+    /**
+     * Load and compile the rules again, e.g. after the rules were changed in the database.
+     *
+     * @return true, if the rules were loaded
+     */
+    public synchronized boolean reload() {
+        try {
+            compile(classificationRuleRepository.findAllByOrderByPriorityAscIdAsc());
+            return true;
+        } catch (DataAccessException exception) {
+            logger.debug("The classification rules could not be loaded.", exception);
+            return false;
+        }
+    }
+
+    /**
+     * Load the rules and compile them only, if they were changed since the last compilation.
+     * Called at the start of every job classifying groups or accounts.
+     *
+     * @return the current rules, the last compiled rules if the rules could not be loaded
+     */
+    public synchronized GroupClassifier reloadIfChanged() {
+        try {
+            List<ClassificationRule> rules = classificationRuleRepository.findAllByOrderByPriorityAscIdAsc();
+            if (!rules.stream().map(RuleValues::of).toList().equals(compiledRuleValues)) {
+                compile(rules);
+            }
+        } catch (DataAccessException exception) {
+            logger.debug("The classification rules could not be loaded.", exception);
+        }
+        return groupClassifier;
+    }
+
+    @PostConstruct
+    void loadRules() {
+        try {
+            if (classificationRuleRepository.count() == 0) {
+                classificationRuleRepository.saveAll(defaultRules());
+                logger.debug("Default classification rules created.");
+            }
+        } catch (DataAccessException exception) {
+            logger.debug("The default classification rules could not be created.", exception);
+        }
+        reload();
+    }
+
+    private void compile(List<ClassificationRule> rules) {
+        groupClassifier = new GroupClassifier(rules);
+        compiledRuleValues = rules.stream().map(RuleValues::of).toList();
+        logger.debug(rules.size() + " classification rules loaded.");
+    }
+
+    // the order of the former checks: project, file share, e-mail
+    private static List<ClassificationRule> defaultRules() {
+        return List.of(
+                new ClassificationRule(Global.CLASSIFICATION_RULE.NAME_CONTAINS,
+                        Global.IMPORT_SETTINGS.ADMIN_GROUP_TEXT, Global.CLASSIFICATION_RULE.ADMIN_TARGET, 0),
+                new ClassificationRule(Global.CLASSIFICATION_RULE.NAME_CONTAINS,
+                        Global.IMPORT_SETTINGS.PROJECT_ROLE_TEXT, Global.ROLE_RESOURCE.PROJECT_ROLE, 10),
+                new ClassificationRule(Global.CLASSIFICATION_RULE.NAME_CONTAINS,
+                        Global.IMPORT_SETTINGS.FILE_SHARE_ROLE_TEXT, Global.ROLE_RESOURCE.FILE_SHARE_ROLE, 20),
+                new ClassificationRule(Global.CLASSIFICATION_RULE.NAME_CONTAINS,
+                        Global.IMPORT_SETTINGS.EMAIL_ROLE_TEXT, Global.ROLE_RESOURCE.EMAIL_RESOURCE_ROLE, 30),
+                new ClassificationRule(Global.CLASSIFICATION_RULE.GROUP_TYPE,
+                        String.valueOf(Global.ADGroupType.DISTRIBUTION), Global.ROLE_RESOURCE.EMAIL_RESOURCE_ROLE, 30),
+                new ClassificationRule(Global.CLASSIFICATION_RULE.GROUP_AREA,
+                        String.valueOf(Global.ADGroupArea.UNIVERSAL), Global.ROLE_RESOURCE.EMAIL_RESOURCE_ROLE, 30));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.entity.ADGroup;
+import de.hirola.adroles.data.entity.ClassificationRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The classification rules, compiled once for all groups.
+ * <p>
+ * The texts of all name rules and of all DN rules are searched with one automaton each,
+ * so the costs do not grow with the number of rules. Regular expressions are compiled
+ * once, group type and area are looked up by the number.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public class GroupClassifier {
+    private static final Logger logger = LoggerFactory.getLogger(GroupClassifier.class);
+    // ordered by priority, the index of a rule is used in the matchers
+    private final int[] targets;
+    private final KeywordMatcher nameMatcher, dnMatcher;
+    private final int[] nameKeywordRules, dnKeywordRules;
+    private final Map<Integer, Pattern> namePatterns = new LinkedHashMap<>();
+    private final Map<Integer, List<Integer>> groupTypeRules = new HashMap<>();
+    private final Map<Integer, List<Integer>> groupAreaRules = new HashMap<>();
+
+    /**
+     * The result of the classification.
+     *
+     * @param isAdmin true, if an admin rule matches
+     * @param roleResourceType of the matching rule with the lowest priority ==> Global.ROLE_RESOURCE,
+     *                         DEFAULT_ROLE if no rule matches
+     */
+    public record Classification(boolean isAdmin, int roleResourceType) {}
+
+    /**
+     * Compile the rules. Invalid rules (e.g. a wrong regular expression) are skipped.
+     *
+     * @param rules ordered by priority
+     */
+    public GroupClassifier(List<ClassificationRule> rules) {
+        targets = new int[rules.size()];
+        List<String> nameKeywords = new ArrayList<>();
+        List<Integer> nameRuleIndexes = new ArrayList<>();
+        List<String> dnKeywords = new ArrayList<>();
+        List<Integer> dnRuleIndexes = new ArrayList<>();
+        for (int index = 0; index < rules.size(); index++) {
+            ClassificationRule rule = rules.get(index);
+            targets[index] = rule.getTarget();
+            String pattern = rule.getPattern();
+            try {
+                switch (rule.getRuleType()) {
+                    case Global.CLASSIFICATION_RULE.NAME_CONTAINS -> {
+                        nameKeywords.add(pattern);
+                        nameRuleIndexes.add(index);
+                    }
+                    case Global.CLASSIFICATION_RULE.DN_CONTAINS -> {
+                        dnKeywords.add(pattern);
+                        dnRuleIndexes.add(index);
+                    }
+                    case Global.CLASSIFICATION_RULE.NAME_PATTERN ->
+                            namePatterns.put(index, Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+                    case Global.CLASSIFICATION_RULE.GROUP_TYPE -> groupTypeRules
+                            .computeIfAbsent(Integer.parseInt(pattern.trim()), type -> new ArrayList<>()).add(index);
+                    case Global.CLASSIFICATION_RULE.GROUP_AREA -> groupAreaRules
+                            .computeIfAbsent(Integer.parseInt(pattern.trim()), area -> new ArrayList<>()).add(index);
+                    default -> logger.debug("Classification rule " + rule.getId() + " has an unknown type.");
+                }
+            } catch (PatternSyntaxException | NumberFormatException exception) {
+                logger.debug("Classification rule " + rule.getId() + " is invalid and skipped.", exception);
+            }
+        }
+        nameMatcher = new KeywordMatcher(nameKeywords);
+        nameKeywordRules = nameRuleIndexes.stream().mapToInt(Integer::intValue).toArray();
+        dnMatcher = new KeywordMatcher(dnKeywords);
+        dnKeywordRules = dnRuleIndexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Classify a group by name, distinguished name, group type and group area.
+     *
+     * @param adGroup to classify
+     * @return the classification of the group
+     */
+    public Classification classify(ADGroup adGroup) {
+        BitSet matchingRules = matchName(adGroup.getName());
+        dnMatcher.findAll(adGroup.getDistinguishedName(), index -> matchingRules.set(dnKeywordRules[index]));
+        groupTypeRules.getOrDefault(adGroup.getGroupType(), List.of()).forEach(matchingRules::set);
+        groupAreaRules.getOrDefault(adGroup.getGroupArea(), List.of()).forEach(matchingRules::set);
+        boolean isAdmin = false;
+        int roleResourceType = Global.ROLE_RESOURCE.DEFAULT_ROLE;
+        boolean hasRoleResource = false;
+        for (int index = matchingRules.nextSetBit(0); index >= 0; index = matchingRules.nextSetBit(index + 1)) {
+            if (targets[index] == Global.CLASSIFICATION_RULE.ADMIN_TARGET) {
+                isAdmin = true;
+            } else if (!hasRoleResource) {
+                // the rules are ordered by priority
+                roleResourceType = targets[index];
+                hasRoleResource = true;
+            }
+        }
+        return new Classification(isAdmin, roleResourceType);
+    }
+
+    /**
+     * Check a name (e.g. the logon name of an account) with the admin rules for names.
+     *
+     * @param name to check
+     * @return true, if an admin rule for names matches
+     */
+    public boolean isAdminName(String name) {
+        BitSet matchingRules = matchName(name);
+        for (int index = matchingRules.nextSetBit(0); index >= 0; index = matchingRules.nextSetBit(index + 1)) {
+            if (targets[index] == Global.CLASSIFICATION_RULE.ADMIN_TARGET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BitSet matchName(String name) {
+        BitSet matchingRules = new BitSet(targets.length);
+        if (name == null) {
+            return matchingRules;
+        }
+        nameMatcher.findAll(name, index -> matchingRules.set(nameKeywordRules[index]));
+        for (Map.Entry<Integer, Pattern> namePattern : namePatterns.entrySet()) {
+            if (namePattern.getValue().matcher(name).find()) {
+                matchingRules.set(namePattern.getKey());
+            }
+        }
+        return matchingRules;
+    }
+}
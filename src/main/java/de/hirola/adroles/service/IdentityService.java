@@ -9,46 +9,59 @@
 package de.hirola.adroles.service;
 
 import com.google.common.eventbus.EventBus;
-import com.imperva.ddc.core.Connector;
-import com.imperva.ddc.core.language.PhraseOperator;
-import com.imperva.ddc.core.language.QueryAssembler;
-import com.imperva.ddc.core.language.SentenceOperator;
 import com.imperva.ddc.core.query.*;
 import com.imperva.ddc.service.DirectoryConnectorService;
 import com.vaadin.flow.component.Component;
 import de.hirola.adroles.Global;
+import de.hirola.adroles.data.AbstractEntity;
 import de.hirola.adroles.data.entity.*;
+import de.hirola.adroles.data.projection.*;
 import de.hirola.adroles.data.repository.*;
 import de.hirola.adroles.util.ServiceResult;
 import de.hirola.adroles.util.ServiceEvent;
 import org.apache.directory.api.util.DateUtils;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.naming.NamingException;
+import javax.naming.directory.Attributes;
 import javax.validation.constraints.NotNull;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class IdentityService {
+    // accounts linked with persons per transaction
+    private static final int LINK_CHUNK_SIZE = 500;
+    private static final String DELETED_OBJECTS_WARNING = "warning: the deleted objects could not be read from AD "
+            + "(permission to list the deleted objects needed), objects deleted in AD are not removed";
     private final Logger logger = LoggerFactory.getLogger(IdentityService.class);
     private final EventBus eventBus = new EventBus();
     private String sessionUserName;
-    private final Endpoint endpoint = new Endpoint();
-    private boolean isConnected;
+    private volatile boolean isConnected;
+    private DirectoryConnectionPool connectionPool;
     private ActiveDirectory activeDirectory;
     private final ActiveDirectoryRepository activeDirectoryRepository;
     private  final PersonRepository personRepository;
@@ -56,24 +69,66 @@ public class IdentityService {
     private final RoleResourceRepository roleResourceRepository;
     private final ADUserRepository adUserRepository;
     private final ADGroupRepository adGroupRepository;
+    private final ADGroupMemberRepository adGroupMemberRepository;
+    private final ADGroupNestingService adGroupNestingService;
+    private final JobService jobService;
+    private final ChunkedJobExecutor chunkedJobExecutor;
+    private final StatisticsService statisticsService;
+    private final RoleAssignmentRepository roleAssignmentRepository;
+    private final GroupClassificationService groupClassificationService;
+    private final EntitlementRepository entitlementRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${adroles.ldap.pageSize:500}")
+    private int pageSize;
+    @Value("${adroles.ldap.deltaSync:true}")
+    private boolean isDeltaSyncEnabled;
+    @Value("${adroles.ldap.pool.maxSize:4}")
+    private int poolMaxSize;
+    @Value("${adroles.ldap.pool.idleTimeout:300000}")
+    private long poolIdleTimeoutMillis;
+
+    // the values of a role derived from an AD group
+    private record RoleValues(Integer id, String description, boolean isAdminRole, Integer roleResourceId) {
+        // a missing description is the same as an empty description
+        RoleValues {
+            description = Objects.toString(description, "");
+        }
+    }
 
     public IdentityService(ActiveDirectoryRepository activeDirectoryRepository,
                            PersonRepository personRepository,
                            RoleRepository roleRepository,
                            RoleResourceRepository roleResourceRepository,
                            ADUserRepository adUserRepository,
-                           ADGroupRepository adGroupRepository) {
+                           ADGroupRepository adGroupRepository,
+                           ADGroupMemberRepository adGroupMemberRepository,
+                           ADGroupNestingService adGroupNestingService,
+                           JobService jobService,
+                           ChunkedJobExecutor chunkedJobExecutor,
+                           StatisticsService statisticsService,
+                           RoleAssignmentRepository roleAssignmentRepository,
+                           GroupClassificationService groupClassificationService,
+                           EntitlementRepository entitlementRepository,
+                           PlatformTransactionManager transactionManager) {
         this.activeDirectoryRepository = activeDirectoryRepository;
         this.personRepository = personRepository;
         this.roleRepository = roleRepository;
         this.roleResourceRepository = roleResourceRepository;
         this.adUserRepository = adUserRepository;
         this.adGroupRepository = adGroupRepository;
+        this.adGroupMemberRepository = adGroupMemberRepository;
+        this.adGroupNestingService = adGroupNestingService;
+        this.jobService = jobService;
+        this.chunkedJobExecutor = chunkedJobExecutor;
+        this.statisticsService = statisticsService;
+        this.roleAssignmentRepository = roleAssignmentRepository;
+        this.groupClassificationService = groupClassificationService;
+        this.entitlementRepository = entitlementRepository;
+        transactionTemplate = new TransactionTemplate(transactionManager);
         sessionUserName = Global.LOGGING_VALUES.UNKNOWN_USER_STRING;
         // we manage only one AD
         if (activeDirectoryRepository.count() == 1) {
             activeDirectory = activeDirectoryRepository.findAll().get(0);
-            connect();
         } else {
             activeDirectory = new ActiveDirectory();
         }
@@ -91,6 +146,29 @@ public class IdentityService {
         eventBus.unregister(listener);
     }
 
+    /**
+     * Run an import or assignment as background job. The progress ({@link de.hirola.adroles.util.JobProgressEvent})
+     * and the result ({@link ServiceEvent}) of the job are posted to the registered listeners.
+     *
+     * @param jobType of the job ==> Global.JOB_TYPE
+     * @param work of the job, e.g. identityService::updateUserFromAD
+     * @return the result of the submission, the job is rejected if a job of the same type
+     * or the scheduled sync is running
+     */
+    public ServiceResult submitJob(String jobType, Function<JobContext, ServiceResult> work) {
+        // the scheduled sync changes the same data
+        if (jobService.isActive(Global.JOB_TYPE.SCHEDULED_SYNC)) {
+            String resultMessage = "The scheduled sync with the Active Directory is running. Please try again later.";
+            logger.debug(resultMessage);
+            return new ServiceResult(false, resultMessage);
+        }
+        return jobService.submit(jobType, sessionUserName, work, eventBus::post);
+    }
+
+    public boolean cancelJob(String jobType) {
+        return jobService.cancel(jobType);
+    }
+
     public @Nullable RoleResource getRoleResource(int type) {
         switch (type) {
             case Global.ROLE_RESOURCE.ORG_ROLE -> {
@@ -216,6 +294,8 @@ public class IdentityService {
 
     public void saveActiveDirectory(ActiveDirectory activeDirectory) {
         // if there is no configuration for AD
+        // the connections use the old settings
+        closeConnectionPool();
         if (activeDirectoryRepository.count() == 0) {
             this.activeDirectory = activeDirectory;
             activeDirectoryRepository.save(activeDirectory);
@@ -229,6 +309,8 @@ public class IdentityService {
     }
 
     public ServiceResult verifyConnection(@NotNull ActiveDirectory activeDirectory) {
+        // the settings to verify can differ from the saved settings
+        Endpoint endpoint = new Endpoint();
         endpoint.setSecuredConnection(activeDirectory.useSecureConnection());
         endpoint.setPort((int) activeDirectory.getPort());
         endpoint.setHost(activeDirectory.getIPAddress());
@@ -262,7 +344,7 @@ public class IdentityService {
             Sort.Order order = new Sort.Order(Sort.Direction.ASC, "lastName").ignoreCase();
             return personRepository.findAll(Sort.by(order));
         } else {
-            return personRepository.search(stringFilter);
+            return personRepository.search(searchTerm(stringFilter));
         }
     }
 
@@ -270,10 +352,30 @@ public class IdentityService {
         if (stringFilter == null || stringFilter.isEmpty()) {
             return personRepository.findByIsEmployeeTrueOrderByLastNameAscFirstNameAsc();
         } else {
-            return personRepository.searchEmployees(stringFilter);
+            return personRepository.searchEmployees(searchTerm(stringFilter));
         }
     }
 
+    /**
+     * Load a page of the rows of the person list without loading the entities.
+     *
+     * @param stringFilter search term, empty for all persons
+     * @param pageable page and order of the rows, ordered by last name if unsorted
+     * @return the rows of the page
+     */
+    public Slice<PersonListItem> findPersonListItems(@Nullable String stringFilter, Pageable pageable) {
+        return personRepository.findListItems(searchTerm(stringFilter),
+                listItemPageable(pageable, "lastName", Map.of()));
+    }
+
+    public long countPersonListItems(@Nullable String stringFilter) {
+        return personRepository.countListItems(searchTerm(stringFilter));
+    }
+
+    public List<Person> findPersons(Collection<Integer> ids) {
+        return personRepository.findAllById(ids);
+    }
+
     public List<Person> findAllPersonsWithDepartmentName(String departmentName) {
         if (departmentName == null || departmentName.isEmpty()) {
             Sort.Order order = new Sort.Order(Sort.Direction.ASC, "lastName").ignoreCase();
@@ -286,15 +388,15 @@ public class IdentityService {
     public List<Role> findAllRoles(@Nullable String stringFilter, @Nullable RoleResource roleResource) {
         if ((stringFilter != null && !stringFilter.isEmpty()) && roleResource != null) {
             if (roleResource.isOrgResource()) {
-                return roleRepository.searchOrg(stringFilter);
+                return roleRepository.searchOrg(searchTerm(stringFilter));
             } else if (roleResource.isProjectResource()) {
-                return roleRepository.searchProject(stringFilter);
+                return roleRepository.searchProject(searchTerm(stringFilter));
             } else if (roleResource.isFileShareResource()) {
-                return roleRepository.searchFileShare(stringFilter);
+                return roleRepository.searchFileShare(searchTerm(stringFilter));
             } else if (roleResource.isEmailResource()) {
-                return roleRepository.searchMailResource(stringFilter);
+                return roleRepository.searchMailResource(searchTerm(stringFilter));
             }
-            return roleRepository.search(stringFilter);
+            return roleRepository.search(searchTerm(stringFilter));
         }
         if ((stringFilter == null || stringFilter.isEmpty()) && roleResource != null) {
             if (roleResource.isOrgResource()) {
@@ -308,18 +410,100 @@ public class IdentityService {
             }
         }
         if (stringFilter != null && !stringFilter.isEmpty()) {
-            return roleRepository.search(stringFilter);
+            return roleRepository.search(searchTerm(stringFilter));
         }
         Sort.Order order = new Sort.Order(Sort.Direction.ASC, "name").ignoreCase();
         return roleRepository.findAll(Sort.by(order));
     }
 
+    /**
+     * Load a page of the rows of the role list without loading the entities.
+     *
+     * @param stringFilter search term, empty for all roles
+     * @param pageable page and order of the rows, ordered by name if unsorted
+     * @return the rows of the page
+     */
+    public Slice<RoleListItem> findRoleListItems(@Nullable String stringFilter, Pageable pageable) {
+        return roleRepository.findListItems(searchTerm(stringFilter),
+                listItemPageable(pageable, "name", Map.of(
+                "roleResource", RoleRepository.ROLE_RESOURCE_TYPE,
+                "personCount", RoleRepository.PERSON_COUNT)));
+    }
+
+    public long countRoleListItems(@Nullable String stringFilter) {
+        return roleRepository.countListItems(searchTerm(stringFilter));
+    }
+
+    public List<Role> findRoles(Collection<Integer> ids) {
+        return roleRepository.findAllById(ids);
+    }
+
     public List<ADUser> findAllADUsers(@Nullable String value) {
         if (value == null || value.isEmpty()) {
             return adUserRepository.findAll(Sort.by(Sort.Direction.ASC, "logonName"));
         } else {
-            return adUserRepository.search(value);
+            return adUserRepository.search(searchTerm(value));
+        }
+    }
+
+    /**
+     * Load the person with the AD users and roles for the edit and assignment forms.
+     * The lists load the persons without relations.
+     *
+     * @param person from a list
+     * @return the person with the relations or the given person, if it was not saved before
+     */
+    public Person findPersonWithAssignments(Person person) {
+        if (person == null || person.getId() == null) {
+            return person;
+        }
+        return personRepository.findWithAssignmentsById(person.getId()).orElse(person);
+    }
+
+    public @Nullable Person findPersonWithAssignments(Integer personId) {
+        return personRepository.findWithAssignmentsById(personId).orElse(null);
+    }
+
+    /**
+     * Load the role with the persons, AD users and AD groups for the edit and assignment forms.
+     * The lists load the roles without relations.
+     *
+     * @param role from a list
+     * @return the role with the relations or the given role, if it was not saved before
+     */
+    public Role findRoleWithAssignments(Role role) {
+        if (role == null || role.getId() == null) {
+            return role;
         }
+        return roleRepository.findWithAssignmentsById(role.getId()).orElse(role);
+    }
+
+    public @Nullable Role findRoleWithAssignments(Integer roleId) {
+        return roleRepository.findWithAssignmentsById(roleId).orElse(null);
+    }
+
+    /**
+     * Load a page of the rows of the AD user list without loading the entities.
+     *
+     * @param stringFilter search term, empty for all AD users
+     * @param pageable page and order of the rows, ordered by logon name if unsorted
+     * @return the rows of the page
+     */
+    public Slice<ADUserListItem> findADUserListItems(@Nullable String stringFilter, Pageable pageable) {
+        return adUserRepository.findListItems(searchTerm(stringFilter),
+                listItemPageable(pageable, "logonName", Map.of()));
+    }
+
+    public long countADUserListItems(@Nullable String stringFilter) {
+        return adUserRepository.countListItems(searchTerm(stringFilter));
+    }
+
+    public List<ADUser> findADUsers(Collection<Integer> ids) {
+        return adUserRepository.findAllById(ids);
+    }
+
+    public @Nullable ADUser findADUser(Integer id) {
+        return adUserRepository.findById(id).orElse(null);
     }
 
     public List<ADUser> findAllManageableADUsers() {
@@ -330,32 +514,115 @@ public class IdentityService {
         if (value == null || value.isEmpty()) {
             return adGroupRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
         } else {
-            return adGroupRepository.search(value);
+            return adGroupRepository.search(searchTerm(value));
         }
     }
 
+    /**
+     * Load a page of the rows of the AD group list without loading the entities.
+     *
+     * @param stringFilter search term, empty for all AD groups
+     * @param pageable page and order of the rows, ordered by name if unsorted
+     * @return the rows of the page
+     */
+    public Slice<ADGroupListItem> findADGroupListItems(@Nullable String stringFilter, Pageable pageable) {
+        return adGroupRepository.findListItems(searchTerm(stringFilter),
+                listItemPageable(pageable, "name", Map.of("memberCount", ADGroupRepository.MEMBER_COUNT)));
+    }
+
+    public long countADGroupListItems(@Nullable String stringFilter) {
+        return adGroupRepository.countListItems(searchTerm(stringFilter));
+    }
+
+    public List<ADGroup> findADGroups(Collection<Integer> ids) {
+        return adGroupRepository.findAllById(ids);
+    }
+
+    public @Nullable ADGroup findADGroup(Integer id) {
+        return adGroupRepository.findById(id).orElse(null);
+    }
+
     public List<ADGroup> findAllADGroupsForPersons(Set<Person> persons) {
         List<ADGroup> assignedADGroups = new ArrayList<>();
         if (persons == null) {
             return assignedADGroups;
         }
+        // the imported memberships of all users with one query
+        ADGroupMembershipResolver membershipResolver = ADGroupMembershipResolver.load(adGroupRepository);
+        // the ad users of the persons are not loaded with the persons
+        List<Integer> personIds = new ArrayList<>(persons.size());
         for (Person person: persons) {
-            // get the assigned ad users
-            Set<ADUser> personAccountList = person.getADUsers();
-            for (ADUser adUser: personAccountList) {
-                // get the assigned ad groups
-                List<ADGroup> adGroups = getADGroupsForUser(adUser);
-                // add as possible ad group for the role
-                assignedADGroups.addAll(adGroups);
-            }
+            personIds.add(person.getId());
+        }
+        for (ADUser adUser: adUserRepository.findByPerson_IdIn(personIds)) {
+            // get the assigned ad groups
+            List<ADGroup> adGroups = membershipResolver.getADGroups(adUser);
+            // add as possible ad group for the role
+            assignedADGroups.addAll(adGroups);
         }
         return assignedADGroups;
     }
 
+    public List<ADGroup> findAllEffectiveADGroups(ADUser adUser) {
+        if (adUser == null || adUser.getId() == null) {
+            return new ArrayList<>();
+        }
+        // direct and nested groups
+        return adGroupRepository.findEffectiveByMemberId(adUser.getId());
+    }
+
+    public List<ADUser> findAllEffectiveMembers(ADGroup adGroup) {
+        if (adGroup == null || adGroup.getId() == null) {
+            return new ArrayList<>();
+        }
+        // members of the group and of all nested groups
+        return adUserRepository.findEffectiveMembersByADGroupId(adGroup.getId());
+    }
+
+    public List<Entitlement> findEntitlementsByPerson(Integer personId) {
+        return entitlementRepository.findByPersonId(personId);
+    }
+
+    public List<Entitlement> findEntitlementsByRole(Integer roleId) {
+        return entitlementRepository.findByRoleId(roleId);
+    }
+
+    public List<Entitlement> findEntitlementsByADGroup(Integer adGroupId) {
+        return entitlementRepository.findByADGroupId(adGroupId);
+    }
+
+    public List<ADGroup> findAllEntitledADGroups(Person person) {
+        if (person == null || person.getId() == null) {
+            return new ArrayList<>();
+        }
+        // the groups of all roles of the person
+        Set<Integer> adGroupIds = new HashSet<>();
+        for (Entitlement entitlement : entitlementRepository.findByPersonId(person.getId())) {
+            adGroupIds.add(entitlement.adGroupId());
+        }
+        return adGroupRepository.findAllById(adGroupIds);
+    }
+
+    public List<Person> findAllEntitledPersons(ADGroup adGroup) {
+        if (adGroup == null || adGroup.getId() == null) {
+            return new ArrayList<>();
+        }
+        // the persons of all roles with the group
+        Set<Integer> personIds = new HashSet<>();
+        for (Entitlement entitlement : entitlementRepository.findByADGroupId(adGroup.getId())) {
+            personIds.add(entitlement.personId());
+        }
+        return personRepository.findAllById(personIds);
+    }
+
     public List<String> getUniqueDepartmentNames() {
         return personRepository.getUniqueDepartmentNames();
     }
 
+    public DashboardStatistics getDashboardStatistics() {
+        return statisticsService.getDashboardStatistics();
+    }
+
     public long countRoles(@Nullable RoleResource roleResource) {
         if (roleResource == null) {
             return roleRepository.count();
@@ -392,107 +659,143 @@ public class IdentityService {
         return adUserRepository.countByPasswordExpiresFalse();
     }
 
-    public boolean updatePersonsFromAD() {
+    public ServiceResult updatePersonsFromAD(JobContext job) {
         try {
-            int added = 0, updated = 0;
-            // load accounts from AD
-            List<EntityResponse> responses = getADUserEntities();
-            // createQueryRequest / update AD user from response
+            // the admin accounts are classified by the current rules
+            groupClassificationService.reloadIfChanged();
+            int[] adUserCounts = new int[3]; // {added, updated, unchanged}
+            int[] personCounts = new int[2]; // {added, updated}
+            Map<String, Integer> adUserIdsBySID = loadADUserIdsBySID();
+            // load accounts from AD page by page
             // we need the accounts first to link with persons
-            for (EntityResponse response : responses) {
-                boolean[] returnValues = createOrUpdateADUser(response);
-                if (returnValues[0]) {
-                    added++;
-                }
-                if (returnValues[1]) {
-                    updated++;
-                }
-            }
-            added = 0;
-            updated = 0;
-            addLogEntry(added + " users added, " + updated + " users updated from AD");
-            // createQueryRequest / update persons from response
-            for (EntityResponse response : responses) {
-                boolean[] returnValues = createOrUpdatePerson(response);
-                if (returnValues[0]) {
-                    added++;
-                }
-                if (returnValues[1]) {
-                    updated++;
-                }
-            }
+            int count = readADUserPages(0, trackProgress(job, adUserIdsBySID.size(),
+                    page -> transactionTemplate.executeWithoutResult(status -> {
+                        sumUp(adUserCounts, importADUserPage(page, adUserIdsBySID));
+                        sumUp(personCounts, importPersonPage(page));
+                    })));
+            logger.debug(count + " user objects queried from AD.");
+            addLogEntry(adUserCounts[0] + " users added, " + adUserCounts[1] + " users updated, "
+                    + adUserCounts[2] + " users unchanged from AD");
             // TODO: Logging
-            addLogEntry(added + " persons added, " + updated + " persons updated");
+            addLogEntry(personCounts[0] + " persons added, " + personCounts[1] + " persons updated");
             // link AD accounts with persons
-            List<Person> persons = findAllPersons(null);
-            List<ADUser> adUsers = findAllADUsers(null);
-            for (Person person: persons) {
-                String accountName = person.getCentralAccountName();
-                // search in AD accounts for login name
-                for (ADUser adUser:adUsers) {
-                    if (adUser.getLogonName().equalsIgnoreCase(accountName)) {
-                        person.addADUser(adUser);
-                        personRepository.save(person);
-                    }
-                }
-            }
-            return true;
+            int linked = linkADUsersWithPersons(job);
+            addLogEntry(linked + " users linked with persons");
+            return new ServiceResult(true, personCounts[0] + " persons added, " + personCounts[1]
+                    + " persons updated from AD");
         } catch (Exception exception) {
-            logger.debug("Update persons from AD failed: " + exception.getMessage());
-            return false;
+            String resultMessage = "Update persons from AD failed: " + exception.getMessage();
+            logger.debug(resultMessage);
+            return new ServiceResult(false, resultMessage);
         }
     }
 
-    public boolean updateUserFromAD() {
+    public ServiceResult updateUserFromAD(JobContext job) {
         try {
-            int added = 0, updated = 0;
-            // load accounts from AD
-            List<EntityResponse> responses = getADUserEntities();
-            // createQueryRequest / update AD accounts from response
+            // the admin accounts are classified by the current rules
+            groupClassificationService.reloadIfChanged();
+            int[] adUserCounts = new int[3]; // {added, updated, unchanged}
+            Map<String, Integer> adUserIdsBySID = loadADUserIdsBySID();
+            // read the USN before the accounts, changes while importing are read again on the next sync
+            long syncUSN = readHighestCommittedUSN();
+            long lastSyncUSN = isDeltaSyncEnabled ? activeDirectory.getUserSyncUSN() : 0;
+            // load (changed) accounts from AD page by page
             // we need the accounts first to link with persons and ad groups
-            for (EntityResponse response : responses) {
-                boolean[] returnValues = createOrUpdateADUser(response);
-                if (returnValues[0]) {
-                    added++;
-                }
-                if (returnValues[1]) {
-                    updated++;
+            // the number of changed accounts is unknown
+            int count = readADUserPages(lastSyncUSN, trackProgress(job, lastSyncUSN > 0 ? 0 : adUserIdsBySID.size(),
+                    page -> transactionTemplate.executeWithoutResult(status ->
+                            sumUp(adUserCounts, importADUserPage(page, adUserIdsBySID)))));
+            logger.debug(count + " user objects queried from AD (changed since USN " + lastSyncUSN + ").");
+            addLogEntry(adUserCounts[0] + " users added, " + adUserCounts[1] + " users updated, "
+                    + adUserCounts[2] + " users unchanged from AD");
+            String warning = "";
+            if (lastSyncUSN > 0) {
+                int deleted = removeDeletedADObjects(lastSyncUSN, Global.LDAP_QUERY.DELETED_USER_FILTER,
+                        objectSIDs -> adUserRepository.findByObjectSIDIn(objectSIDs).forEach(this::deleteADUserComplete));
+                if (deleted < 0) {
+                    warning = ", " + DELETED_OBJECTS_WARNING;
+                } else {
+                    addLogEntry(deleted + " users deleted in AD");
                 }
             }
-            addLogEntry(added + " users added, " + updated + " users updated from AD");
-            return true;
+            activeDirectory.setUserSyncUSN(syncUSN);
+            if (activeDirectory.getId() != null) {
+                transactionTemplate.executeWithoutResult(status ->
+                        activeDirectoryRepository.updateUserSyncUSN(activeDirectory.getId(), syncUSN));
+            }
+            return new ServiceResult(true, adUserCounts[0] + " users added, " + adUserCounts[1]
+                    + " users updated from AD" + warning);
         } catch (Exception exception) {
-            logger.debug("Update users from AD failed.", exception);
-            return false;
+            String resultMessage = "Update users from AD failed: " + exception.getMessage();
+            logger.debug(resultMessage, exception);
+            return new ServiceResult(false, resultMessage);
         }
     }
 
-    public boolean updateGroupsFromAD() {
+    public ServiceResult updateGroupsFromAD(JobContext job) {
         try {
-            int added = 0, updated = 0;
-            // load groups from AD
-            List<EntityResponse> responses = getADGroupEntities();
-            // createQueryRequest / update AD groups from response
+            // the admin groups are classified by the current rules
+            groupClassificationService.reloadIfChanged();
+            int[] adGroupCounts = new int[3]; // {added, updated, unchanged}
+            int[] memberCounts = new int[2]; // {added, removed}
+            // members not imported as user, the nesting is updated after all groups are imported
+            Map<Integer, List<String>> memberGroupDNsByGroupId = new HashMap<>();
+            Map<String, Integer> adGroupIdsBySID = loadADGroupIdsBySID();
+            // the users must be imported before, the memberships are linked by the distinguished name
+            Map<String, Integer> adUserIdsByDN = loadADUserIdsByDN();
+            // read the USN before the groups, changes while importing are read again on the next sync
+            long syncUSN = readHighestCommittedUSN();
+            long lastSyncUSN = isDeltaSyncEnabled ? activeDirectory.getGroupSyncUSN() : 0;
+            // load (changed) groups from AD page by page
             // if AD users available - link by membership
-            for (EntityResponse response : responses) {
-                boolean[] returnValues = createOrUpdateADGroup(response);
-                if (returnValues[0]) {
-                    added++;
+            int count = readADGroupPages(lastSyncUSN, trackProgress(job, lastSyncUSN > 0 ? 0 : adGroupIdsBySID.size(),
+                    page -> transactionTemplate.executeWithoutResult(status -> {
+                        Map<String, List<String>> memberDNsBySID = new HashMap<>(page.size() * 2);
+                        sumUp(adGroupCounts, importADGroupPage(page, adGroupIdsBySID, memberDNsBySID));
+                        sumUp(memberCounts, importADGroupMembers(memberDNsBySID, adGroupIdsBySID, adUserIdsByDN,
+                                memberGroupDNsByGroupId));
+                    })));
+            logger.debug(count + " group objects queried from AD (changed since USN " + lastSyncUSN + ").");
+            addLogEntry(adGroupCounts[0] + " groups added, " + adGroupCounts[1] + " groups updated, "
+                    + adGroupCounts[2] + " groups unchanged from AD");
+            addLogEntry(memberCounts[0] + " group memberships added, " + memberCounts[1]
+                    + " group memberships removed from AD");
+            // nested groups and the transitive closure
+            job.checkCancelled();
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> changedGroupIds = adGroupNestingService.updateNesting(memberGroupDNsByGroupId);
+                if (lastSyncUSN > 0) {
+                    adGroupNestingService.refreshClosure(changedGroupIds);
+                } else {
+                    adGroupNestingService.rebuildClosure();
                 }
-                if (returnValues[1]) {
-                    updated++;
+                addLogEntry(changedGroupIds.size() + " groups with changed nested groups from AD");
+            });
+            String warning = "";
+            if (lastSyncUSN > 0) {
+                int deleted = removeDeletedADObjects(lastSyncUSN, Global.LDAP_QUERY.DELETED_GROUP_FILTER,
+                        objectSIDs -> adGroupRepository.findByObjectSIDIn(objectSIDs).forEach(this::deleteADGroupComplete));
+                if (deleted < 0) {
+                    warning = ", " + DELETED_OBJECTS_WARNING;
+                } else {
+                    addLogEntry(deleted + " groups deleted in AD");
                 }
             }
-            addLogEntry(added + " groups added, " + updated + " groups updated from AD");
-            return true;
+            activeDirectory.setGroupSyncUSN(syncUSN);
+            if (activeDirectory.getId() != null) {
+                transactionTemplate.executeWithoutResult(status ->
+                        activeDirectoryRepository.updateGroupSyncUSN(activeDirectory.getId(), syncUSN));
+            }
+            return new ServiceResult(true, adGroupCounts[0] + " groups added, " + adGroupCounts[1]
+                    + " groups updated from AD" + warning);
         } catch (Exception exception) {
-            logger.debug("Updateing groups from AD failed.", exception);
-            return false;
+            String resultMessage = "Updating groups from AD failed: " + exception.getMessage();
+            logger.debug(resultMessage, exception);
+            return new ServiceResult(false, resultMessage);
         }
     }
 
-    @Transactional
-    public boolean updateOrgRolesFromPersons() {
+    public ServiceResult updateOrgRolesFromPersons(JobContext job) {
         Optional<RoleResource> optionalResource = roleResourceRepository.getOrgResource();
         RoleResource orgRoleRoleResource;
         if (optionalResource.isPresent()) {
@@ -500,161 +803,182 @@ public class IdentityService {
         } else {
             // try to createQueryRequest the role resource for org
             if ((orgRoleRoleResource = getRoleResource(Global.ROLE_RESOURCE.ORG_ROLE)) == null){
-                logger.debug("Update organisations from persons failed. There are no organisations resource.");
-                return false;
+                String resultMessage = "Update organisations from persons failed. There are no organisations resource.";
+                logger.debug(resultMessage);
+                return new ServiceResult(false, resultMessage);
             }
         }
         try {
             // try to createQueryRequest org units from person attribute department
-            int updatedOrgRolesCount = 0;
-            List<String> departmentNames = getUniqueDepartmentNames();
-            List<Role> allRoles = findAllRoles(null, null);
-            for (Role role: allRoles) {
-                String departmentName = role.getName();
-                if (departmentNames.contains(departmentName)) {
+            Integer updatedOrgRolesCount = transactionTemplate.execute(status -> {
+                int addedOrgRolesCount = 0;
+                Set<String> departmentNames = new LinkedHashSet<>(getUniqueDepartmentNames());
+                // only the roles with the name of a department
+                List<Role> departmentRoles = departmentNames.isEmpty()
+                        ? List.of() : roleRepository.findByNameIn(departmentNames);
+                for (Role role: departmentRoles) {
+                    departmentNames.remove(role.getName());
+                    RoleResource roleResource = role.getRoleResource();
+                    if (roleResource != null && roleResource.isOrgResource()) {
+                        continue;
+                    }
                     // set as organisation role
                     role.setRoleResource(orgRoleRoleResource);
                     roleRepository.save(role);
-                    departmentNames.remove(departmentName); // remove from list
                     addLogEntry("Existing Role \"" + role.getName() + "\" updated as organisation role.");
                 }
-            }
-            // add roles for remaining department names
-            for (String departmentName: departmentNames) {
-                Role orgRole = new Role();
-                orgRole.setRoleResource(orgRoleRoleResource);
-                orgRole.setName(departmentName);
-                orgRole.setDescription(Global.IMPORT_SETTINGS.DEFAULT_IMPORT_TEXT);
-                roleRepository.save(orgRole);
-                addLogEntry("Role \"" + orgRole.getName() + "\" added as organisation role.");
-                updatedOrgRolesCount++;
-            }
+                // add roles for remaining department names
+                List<Role> orgRoles = new ArrayList<>(departmentNames.size());
+                for (String departmentName: departmentNames) {
+                    Role orgRole = new Role();
+                    orgRole.setRoleResource(orgRoleRoleResource);
+                    orgRole.setName(departmentName);
+                    orgRole.setDescription(Global.IMPORT_SETTINGS.DEFAULT_IMPORT_TEXT);
+                    orgRoles.add(orgRole);
+                    addLogEntry("Role \"" + orgRole.getName() + "\" added as organisation role.");
+                    addedOrgRolesCount++;
+                }
+                roleRepository.saveAll(orgRoles);
+                return addedOrgRolesCount;
+            });
             logger.debug(updatedOrgRolesCount + " organizations added or updated from persons");
 
-            // set employee flag for persons with equal name of department
-            // set managed flag for AD user of this persons
-            List<Person> possibleEmployees = personRepository.findAll();
-            List<Role> orgRoles = roleRepository.findByRoleResource_IsOrgResourceTrueOrderByNameAsc();
-            for (Person employee: possibleEmployees) {
-                String departmentName = employee.getDepartmentName();
-                for (Role orgRole: orgRoles) {
-                    if (orgRole.getName().equalsIgnoreCase(departmentName)) {
-
-                        // set the assigner AD users as managed
-                        Set<ADUser> adUsers = employee.getADUsers();
-                        for (ADUser adUser: adUsers) {
-                            adUser.setRoleManaged(true);
-                            adUserRepository.save(adUser);
+            // the org roles by the department name, the comparison ignores the case
+            Map<String, List<Integer>> orgRoleIdsByDepartment = new HashMap<>();
+            for (Object[] row : roleRepository.findAllOrgRoleIdsAndNames()) {
+                orgRoleIdsByDepartment.computeIfAbsent(((String) row[1]).toLowerCase(Locale.ROOT),
+                        key -> new ArrayList<>()).add((Integer) row[0]);
+            }
+            // only the persons in a department of an org role
+            Map<Integer, List<Integer>> orgRoleIdsByPersonId = new HashMap<>();
+            for (Object[] row : personRepository.findAllIdsAndDepartmentNames()) {
+                List<Integer> orgRoleIds = orgRoleIdsByDepartment.get(((String) row[1]).toLowerCase(Locale.ROOT));
+                if (orgRoleIds != null) {
+                    orgRoleIdsByPersonId.put((Integer) row[0], orgRoleIds);
+                }
+            }
+            Map<Integer, Set<Integer>> personIdsByRoleId = roleAssignmentRepository.findAllOrgRolePersonIds();
+
+            // add the persons as employee to the org roles
+            // set employee flag for these persons and the managed flag for their AD users
+            // committed chunk by chunk, a cancellation keeps the processed persons
+            int[] assignedCount = new int[1];
+            chunkedJobExecutor.execute(job, orgRoleIdsByPersonId.keySet(), personIds -> {
+                List<Integer[]> newEdges = new ArrayList<>();
+                for (Integer personId : personIds) {
+                    for (Integer orgRoleId : orgRoleIdsByPersonId.get(personId)) {
+                        if (personIdsByRoleId.computeIfAbsent(orgRoleId, key -> new HashSet<>()).add(personId)) {
+                            newEdges.add(new Integer[]{orgRoleId, personId});
                         }
-
-                        // add person as employee to the org role
-                        employee.addRole(orgRole);
-                        employee.setEmployee(true);
-                        personRepository.save(employee);
-
-                        orgRole.addPerson(employee);
-                        roleRepository.save(orgRole);
-
-                        addLogEntry("Person \"" + employee.getCentralAccountName() +
-                                "\" added as employee to the department with name " + departmentName);
                     }
                 }
-            }
-            return true;
+                roleAssignmentRepository.insertPersons(newEdges);
+                entitlementRepository.refreshPersons(newEdges.stream().map(edge -> edge[1]).toList());
+                personRepository.markAsEmployees(personIds);
+                adUserRepository.markAsRoleManaged(personIds);
+                assignedCount[0] += newEdges.size();
+            });
+            addLogEntry(assignedCount[0] + " persons added as employee to the departments");
+            return new ServiceResult(true, updatedOrgRolesCount + " organizations added or updated from persons");
+        } catch (CancellationException exception) {
+            throw exception;
         } catch (Exception exception) {
-            logger.debug("Updating organisations from persons failed.", exception);
-            return false;
+            String resultMessage = "Updating organisations from persons failed.";
+            logger.debug(resultMessage, exception);
+            return new ServiceResult(false, resultMessage);
         }
     }
 
-    public void assignPersonsToRoles(@NotNull List<Person> persons) {
+    public ServiceResult assignPersonsToRoles(@NotNull List<Integer> personIds, JobContext job) {
         try {
-            int assignedPersonsCount = 0;
-            int assignedRolesCount = 0;
-            for (Person person : persons) {
-                // get managed AD users of person
-                List<ADUser> assignedADUsers = adUserRepository.findByPerson_IdAndIsRoleManagedTrue(person.getId());
-                for (ADUser assignedADUser : assignedADUsers) {
-                    // get the AD groups of AD user from AD
-                    List<ADGroup> adGroupsOfAssignedADUser = getADGroupsForUser(assignedADUser);
-                    for (ADGroup adGroup : adGroupsOfAssignedADUser) {
-                        // get the role with the name of the AD group
-                        Optional<Role> optionalRole = roleRepository.findFirstByName(adGroup.getName());
-                        if (optionalRole.isPresent()) {
+            // the role of every AD group (role with the name of the group) for the whole run
+            Map<Integer, Integer> roleIdsByADGroupId = loadRoleIdsByADGroupId();
+            Map<Integer, Set<Integer>> adGroupIdsByRoleId = roleAssignmentRepository.findAllADGroupIds();
+            int[] counts = new int[3]; // {processed persons, assigned persons, assigned roles}
+            // the selection may change, a cancelled job starts from the beginning
+            chunkedJobExecutor.execute(job, personIds, false, chunk -> {
+                // the managed AD users, their groups and the roles of the persons with one query each
+                Map<Integer, List<Integer>> adUserIdsByPersonId = new HashMap<>();
+                for (Object[] row : adUserRepository.findManagedIdsByPersonIds(chunk)) {
+                    adUserIdsByPersonId.computeIfAbsent((Integer) row[0], key -> new ArrayList<>())
+                            .add((Integer) row[1]);
+                }
+                Map<Integer, Set<Integer>> adGroupIdsByADUserId = adGroupMemberRepository.findADGroupIds(
+                        adUserIdsByPersonId.values().stream().flatMap(List::stream).toList());
+                Map<Integer, Set<Integer>> roleIdsByPersonId = roleAssignmentRepository.findRoleIds(chunk);
+                List<Integer[]> newPersonEdges = new ArrayList<>();
+                List<Integer[]> newADGroupEdges = new ArrayList<>();
+                for (Integer personId : chunk) {
+                    boolean isAssigned = false;
+                    for (Integer adUserId : adUserIdsByPersonId.getOrDefault(personId, List.of())) {
+                        for (Integer adGroupId : adGroupIdsByADUserId.getOrDefault(adUserId, Set.of())) {
+                            Integer roleId = roleIdsByADGroupId.get(adGroupId);
+                            if (roleId == null) {
+                                continue;
+                            }
                             // add the person and the AD group to the role
-                            Role role = optionalRole.get();
-                            role.addPerson(person);
-                            role.addADGroup(adGroup);
-                            roleRepository.save(role);
-                            person.addRole(role);
-                            personRepository.save(person);
-                            assignedRolesCount++;
-                            addLogEntry("Person \"" + person.getCentralAccountName() + "\" and \"" +
-                                    adGroup.getName() + "\" added to the role \"" + role.getName() + "\"");
+                            isAssigned = true;
+                            if (roleIdsByPersonId.computeIfAbsent(personId, key -> new HashSet<>()).add(roleId)) {
+                                newPersonEdges.add(new Integer[]{roleId, personId});
+                            }
+                            if (adGroupIdsByRoleId.computeIfAbsent(roleId, key -> new HashSet<>()).add(adGroupId)) {
+                                newADGroupEdges.add(new Integer[]{roleId, adGroupId});
+                            }
                         }
                     }
-                    assignedPersonsCount++;
+                    if (isAssigned) {
+                        counts[1]++;
+                    }
+                    job.setProgress(++counts[0], personIds.size());
                 }
-            }
-            String resultMessage = assignedPersonsCount + " from " + persons.size() + " persons assigned to "
-                    + assignedRolesCount + " roles";
-            logger.debug(resultMessage);
-            eventBus.post(new ServiceEvent(this,
-                    new ServiceResult(true, resultMessage)));
+                roleAssignmentRepository.insertPersons(newPersonEdges);
+                roleAssignmentRepository.insertADGroups(newADGroupEdges);
+                entitlementRepository.refreshPersons(newPersonEdges.stream().map(edge -> edge[1]).toList());
+                entitlementRepository.refreshADGroups(newADGroupEdges.stream().map(edge -> edge[1]).toList());
+                counts[2] += newPersonEdges.size();
+            });
+            String resultMessage = counts[1] + " from " + personIds.size() + " persons assigned, "
+                    + counts[2] + " role assignments added";
+            addLogEntry(resultMessage);
+            return new ServiceResult(true, resultMessage);
+        } catch (CancellationException exception) {
+            throw exception;
         } catch (Exception exception) {
             String resultMessage = "Error while assign persons to roles automatically: " + exception.getMessage();
             logger.debug(resultMessage, exception);
-            eventBus.post(new ServiceEvent(this,
-                    new ServiceResult(false, resultMessage)));
+            return new ServiceResult(false, resultMessage);
         }
     }
 
-    @Transactional
-    public void updateRolesFromGroups() {
+    public ServiceResult updateRolesFromGroups(JobContext job) {
         try {
             if (adGroupRepository.count() == 0) {
                 String resultMessage = "Update roles from AD groups failed. " +
-                        "There are AD groups in database. Please import from AD first.";
+                        "There are no AD groups in database. Please import from AD first.";
                 logger.debug(resultMessage);
-                eventBus.post(new ServiceEvent(this,
-                        new ServiceResult(false, resultMessage)));
-            }
-            int added = 0, updated = 0;
-            List<ADGroup> adGroups = adGroupRepository.findAll();
-            for (ADGroup adGroup: adGroups) {
-                String name = adGroup.getName();
-                Optional<Role> optionalRole = roleRepository.findFirstByName(name);
-                Role role;
-                if (optionalRole.isPresent()) {
-                    // update
-                    role = optionalRole.get();
-                    updated++;
-                } else {
-                    // add new role from AD group
-                    role = new Role();
-                    role.setName(adGroup.getName());
-                    added++;
-                }
-                role.setDescription(adGroup.getDescription());
-                role.setAdminRole(isAdminByName(name));
-                RoleResource roleResource = getRoleResourceByADGroup(adGroup);
-                if (roleResource != null) {
-                    role.setRoleResource(roleResource);
-                }
-                role.addADGroup(adGroup);
-                roleRepository.save(role);
-                adGroup.addRole(role); // many-to-many relationship
-                adGroupRepository.save(adGroup);
+                return new ServiceResult(false, resultMessage);
             }
-            String resultMessage = added + " roles added and " + updated + " roles updated from AD groups";
+            int[] roleCounts = new int[3]; // {added, updated, unchanged}
+            // the rules of the job start, also if they were changed in the database
+            GroupClassifier groupClassifier = groupClassificationService.reloadIfChanged();
+            // the roles and the assigned groups with one query each, compared in memory
+            Map<String, RoleValues> roleValuesByName = loadRoleValuesByName();
+            Map<Integer, Set<Integer>> adGroupIdsByRoleId = roleAssignmentRepository.findAllADGroupIds();
+            // committed chunk by chunk, a cancellation keeps the processed groups
+            chunkedJobExecutor.execute(job, adGroupRepository.findAllIds(), adGroupIds ->
+                    sumUp(roleCounts, deriveRolesFromADGroups(adGroupRepository.findAllById(adGroupIds),
+                            groupClassifier, roleValuesByName, adGroupIdsByRoleId)));
+            addLogEntry(roleCounts[2] + " roles unchanged from AD groups");
+            String resultMessage = roleCounts[0] + " roles added and " + roleCounts[1]
+                    + " roles updated from AD groups";
             addLogEntry(resultMessage);
-            eventBus.post(new ServiceEvent(this,
-                    new ServiceResult(true, resultMessage)));
+            return new ServiceResult(true, resultMessage);
+        } catch (CancellationException exception) {
+            throw exception;
         } catch (Exception exception) {
             String resultMessage = "Update roles from AD groups failed.";
             logger.debug(resultMessage, exception);
-            eventBus.post(new ServiceEvent(this,
-                    new ServiceResult(false, resultMessage)));
+            return new ServiceResult(false, resultMessage);
         }
     }
 
@@ -673,19 +997,24 @@ public class IdentityService {
         // https://stackoverflow.com/questions/47903876
         try {
             // roles
-            Set<Role> roles = person.getRoles();
+            Set<Role> roles = loadedOrEmpty(person.getRoles());
             for (Role role: roles) {
-                role.addPerson(person);
-                roleRepository.save(role);
+                Role managedRole = loadInTransaction(role, roleRepository);
+                managedRole.addPerson(person);
+                roleRepository.save(managedRole);
             }
             // AD users
-            Set<ADUser> adUsers = person.getADUsers();
+            Set<ADUser> adUsers = loadedOrEmpty(person.getADUsers());
             for (ADUser adUser: adUsers) {
                 adUser.setPerson(person);
                 adUserRepository.save(adUser);
             }
 
             personRepository.save(person);
+            // the assignments must be written before the entitlements are updated
+            personRepository.flush();
+            entitlementRepository.refreshPersons(List.of(person.getId()));
+            statisticsService.invalidate();
             return true;
         } catch (Exception exception) {
             logger.debug("Error while saving person \"" + person.getCentralAccountName() + "\"", exception);
@@ -704,25 +1033,31 @@ public class IdentityService {
         // https://stackoverflow.com/questions/47903876
         try {
             // persons
-            Set<Person> persons = role.getPersons();
+            Set<Person> persons = loadedOrEmpty(role.getPersons());
             for (Person person: persons) {
-                person.addRole(role);
+                loadInTransaction(person, personRepository).addRole(role);
                 roleRepository.save(role);
             }
             // AD users
-            Set<ADUser> adUsers = role.getADUsers();
+            Set<ADUser> adUsers = loadedOrEmpty(role.getADUsers());
             for (ADUser adUser: adUsers) {
-                adUser.addRole(role);
-                adUserRepository.save(adUser);
+                ADUser managedADUser = loadInTransaction(adUser, adUserRepository);
+                managedADUser.addRole(role);
+                adUserRepository.save(managedADUser);
             }
             // AD users
-            Set<ADGroup> adGroups = role.getADGroups();
+            Set<ADGroup> adGroups = loadedOrEmpty(role.getADGroups());
             for (ADGroup adGroup: adGroups) {
-                adGroup.addRole(role);
-                adGroupRepository.save(adGroup);
+                ADGroup managedADGroup = loadInTransaction(adGroup, adGroupRepository);
+                managedADGroup.addRole(role);
+                adGroupRepository.save(managedADGroup);
             }
 
             roleRepository.save(role);
+            // the assignments must be written before the entitlements are updated
+            roleRepository.flush();
+            entitlementRepository.refreshRoles(List.of(role.getId()));
+            statisticsService.invalidate();
             return true;
         } catch (Exception exception) {
             logger.debug("Error while saving role " + role.getName() + " .", exception);
@@ -741,13 +1076,15 @@ public class IdentityService {
         // https://stackoverflow.com/questions/47903876
         try {
             // roles
-            Set<Role> roles = adUser.getRoles();
+            Set<Role> roles = loadedOrEmpty(adUser.getRoles());
             for (Role role: roles) {
-                role.addADUser(adUser);
-                roleRepository.save(role);
+                Role managedRole = loadInTransaction(role, roleRepository);
+                managedRole.addADUser(adUser);
+                roleRepository.save(managedRole);
             }
 
             adUserRepository.save(adUser);
+            statisticsService.invalidate();
             return true;
         } catch (Exception exception) {
             logger.debug("Error while saving AD user " + adUser.getDistinguishedName() + " .", exception);
@@ -766,13 +1103,18 @@ public class IdentityService {
         // https://stackoverflow.com/questions/47903876
         try {
             // roles
-            Set<Role> roles = adGroup.getRoles();
+            Set<Role> roles = loadedOrEmpty(adGroup.getRoles());
             for (Role role: roles) {
-                role.addADGroup(adGroup);
-                roleRepository.save(role);
+                Role managedRole = loadInTransaction(role, roleRepository);
+                managedRole.addADGroup(adGroup);
+                roleRepository.save(managedRole);
             }
 
             adGroupRepository.save(adGroup);
+            // the assignments must be written before the entitlements are updated
+            adGroupRepository.flush();
+            entitlementRepository.refreshADGroups(List.of(adGroup.getId()));
+            statisticsService.invalidate();
             return true;
         } catch (Exception exception) {
             logger.debug("Error while saving AD group \"" + adGroup.getName() + "\"", exception);
@@ -788,6 +1130,7 @@ public class IdentityService {
         deletePersonComplete(person);
     }
 
+    @Transactional
     public void deleteRole(Role role) {
         if (role == null) {
             return;
@@ -795,6 +1138,7 @@ public class IdentityService {
         deleteRoleComplete(role);
     }
 
+    @Transactional
     public void deleteADUser(ADUser adUser) {
         if (adUser == null) {
             return;
@@ -802,6 +1146,7 @@ public class IdentityService {
         deleteADUserComplete(adUser);
     }
 
+    @Transactional
     public void deleteADGroup(ADGroup adGroup) {
         if (adGroup == null) {
             return;
@@ -854,9 +1199,30 @@ public class IdentityService {
         SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_INHERITABLETHREADLOCAL);
     }
 
+    // the settings of the connection pool are injected after the constructor
+    @PostConstruct
+    void connectActiveDirectory() {
+        if (activeDirectory.getId() != null) {
+            isConnected = connect();
+        }
+    }
+
+    @PreDestroy
+    synchronized void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
+        }
+        isConnected = false;
+    }
+
     @Transactional
-    private void deleteRoleComplete(Role role) {
+    private void deleteRoleComplete(Role listRole) {
+        // the relations are not loaded with the lists
+        Role role = roleRepository.findWithAssignmentsById(listRole.getId()).orElse(listRole);
         try {
+            // the entitlements are not managed by the entity
+            entitlementRepository.deleteByRoleId(role.getId());
             Set<Person> persons = role.getPersons();
             for (Person person: persons) {
                 person.removeRole(role);
@@ -876,6 +1242,7 @@ public class IdentityService {
             }
 
             roleRepository.delete(role);
+            statisticsService.invalidate();
             addLogEntry("Role \"" + role.getName() + "\" deleted.");
         } catch (Exception exception) {
             logger.debug("Error while deleting role \"" + role.getName() + "\"", exception);
@@ -884,8 +1251,11 @@ public class IdentityService {
 
     // delete all relations with this object
     @Transactional
-    private void deletePersonComplete(Person person) {
+    private void deletePersonComplete(Person listPerson) {
+        Person person = personRepository.findWithAssignmentsById(listPerson.getId()).orElse(listPerson);
         try {
+            // the entitlements are not managed by the entity
+            entitlementRepository.deleteByPersonId(person.getId());
             Set<Role> roles = person.getRoles();
             for (Role role: roles) {
                 role.removePerson(person);
@@ -893,6 +1263,7 @@ public class IdentityService {
             }
 
             personRepository.delete(person);
+            statisticsService.invalidate();
             addLogEntry("Person \"" + person.getCentralAccountName() + " \"deleted.");
         } catch (Exception exception) {
             logger.debug("Error while deleting person \"" + person.getCentralAccountName() + "\"", exception);
@@ -900,14 +1271,18 @@ public class IdentityService {
     }
 
     @Transactional
-    private void deleteADUserComplete(ADUser adUser) {
+    private void deleteADUserComplete(ADUser listADUser) {
+        ADUser adUser = adUserRepository.findWithRolesById(listADUser.getId()).orElse(listADUser);
         try {
             Set<Role> roles = adUser.getRoles();
             for (Role role: roles) {
                 role.removeADUser(adUser);
                 roleRepository.save(role);
             }
+            // the memberships are not managed by the entity
+            adGroupMemberRepository.deleteByADUserId(adUser.getId());
             adUserRepository.delete(adUser);
+            statisticsService.invalidate();
             addLogEntry("AD user \"" + adUser.getDistinguishedName() + "\" deleted.");
         } catch (Exception exception) {
             logger.debug("Error while deleting AD user \"" + adUser.getDistinguishedName() + "\"", exception);
@@ -915,15 +1290,38 @@ public class IdentityService {
     }
 
     @Transactional
-    private void deleteADGroupComplete(ADGroup adGroup) {
+    private void deleteADGroupComplete(ADGroup listADGroup) {
+        ADGroup adGroup = adGroupRepository.findWithRolesById(listADGroup.getId()).orElse(listADGroup);
         try {
+            // the nesting and the entitlements are not managed by the entity
+            adGroupNestingService.removeADGroup(adGroup.getId());
+            entitlementRepository.deleteByADGroupId(adGroup.getId());
+            Set<Role> roles = adGroup.getRoles();
+            for (Role role: roles) {
+                role.removeADGroup(adGroup);
+                roleRepository.save(role);
+            }
             adGroupRepository.delete(adGroup);
+            statisticsService.invalidate();
             addLogEntry("AD group \"" + adGroup.getDistinguishedName() + "\" deleted.");
         } catch (Exception exception) {
             logger.debug("Error while deleting AD group \"" + adGroup.getDistinguishedName() + "\"", exception);
         }
     }
 
+    // relations not loaded with the entity have not been changed
+    private static <T> Set<T> loadedOrEmpty(Set<T> relation) {
+        return Hibernate.isInitialized(relation) ? relation : Collections.emptySet();
+    }
+
+    // the relations of an entity from the views can only be loaded in a transaction, if the entity is managed
+    private static <T extends AbstractEntity> T loadInTransaction(T entity, JpaRepository<T, Integer> repository) {
+        if (entity.getId() == null) {
+            return entity;
+        }
+        return repository.findById(entity.getId()).orElse(entity);
+    }
+
     private boolean connect() {
         try {
             if (isConnected) {
@@ -934,15 +1332,10 @@ public class IdentityService {
                 isConnected = false;
                 return false;
             }
-            // try to connect
-            endpoint.setSecuredConnection(activeDirectory.useSecureConnection());
-            endpoint.setPort((int) activeDirectory.getPort());
-            endpoint.setHost(activeDirectory.getIPAddress());
-            endpoint.setUserAccountName(activeDirectory.getConnectionUserName());
-            endpoint.setPassword(activeDirectory.getEncryptedConnectionPassword());
-            final ConnectionResponse connectionResponse = DirectoryConnectorService.authenticate(endpoint);
-            if (connectionResponse.isError()) {
+            // try to connect with a connection from the pool
+            if (!getConnectionPool().verify()) {
                 logger.debug("The connection to the Active Directory failed.");
+                return false;
             }
             logger.debug("The connection to the Active Directory was successfully established.");
             return true;
@@ -952,412 +1345,619 @@ public class IdentityService {
         }
     }
 
-    @Nullable
-    private QueryRequest createQueryRequest() {
-        if (isConnected()) {
-            QueryRequest queryRequest = new QueryRequest();
-            queryRequest.setDirectoryType(DirectoryType.MS_ACTIVE_DIRECTORY);
-            queryRequest.setSizeLimit(1000); //TODO: read from config
-            queryRequest.setTimeLimit(1000); //TODO: read from config
-            queryRequest.addEndpoint(endpoint);
-            return queryRequest;
-        }
-        return null;
-    }
-
-    private List<EntityResponse> getADUserEntities() {
-        if (isConnected()) {
-            QueryRequest queryRequest = createQueryRequest();
-            if (queryRequest != null) {
-                try {
-                    queryRequest.setObjectType(ObjectType.USER);
-                    //TODO: set filter by config, e.g. load only enabled accounts
-                    queryRequest.addSearchSentence(new QueryAssembler()
-                            .addPhrase("userAccountControl", PhraseOperator.EQUAL, "512")
-                            .addPhrase("userAccountControl", PhraseOperator.EQUAL, "66048")
-                            .closeSentence(SentenceOperator.OR));
-
-                    // get all fields needed for entities person and ad account
-                    queryRequest.addRequestedField(Global.ADAttributes.DISPLAY_NAME);
-                    queryRequest.addRequestedField(Global.ADAttributes.DESCRIPTION);
-                    queryRequest.addRequestedField(Global.ADAttributes.ACCOUNT_EXPIRES);
-                    queryRequest.addRequestedField(Global.ADAttributes.SID);
-                    queryRequest.addRequestedField(FieldType.LOGON_NAME);
-                    queryRequest.addRequestedField(FieldType.DISTINGUISHED_NAME);
-                    queryRequest.addRequestedField(FieldType.FIRST_NAME);
-                    queryRequest.addRequestedField(FieldType.LAST_NAME);
-                    queryRequest.addRequestedField(FieldType.DEPARTMENT);
-                    queryRequest.addRequestedField(FieldType.EMAIL);
-                    queryRequest.addRequestedField(FieldType.PHONE_NUMBER);
-                    queryRequest.addRequestedField(FieldType.MOBILE_PHONE);
-                    queryRequest.addRequestedField(FieldType.USER_ACCOUNT_CONTROL);
-                    queryRequest.addRequestedField(FieldType.CREATION_TIME); // possible employee entry date
-                    Connector connector = new Connector(queryRequest);
-                    QueryResponse queryResponse = connector.execute();
-                    logger.debug(queryResponse.getAll().size() + " user objects queried from AD.");
-                    return queryResponse.getAll();
-                } catch (Exception exception) {
-                    logger.debug("Error occurred while loading users from AD.", exception);
+    // one pool for the Active Directory, shared by all imports and queries
+    private synchronized DirectoryConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new DirectoryConnectionPool(activeDirectory, poolMaxSize, poolIdleTimeoutMillis);
+        }
+        return connectionPool;
+    }
+
+    // check the cancellation before and report the progress after every page
+    private Consumer<List<Attributes>> trackProgress(JobContext job, int estimatedTotal,
+                                                     Consumer<List<Attributes>> pageConsumer) {
+        int[] processed = new int[1];
+        return page -> {
+            job.checkCancelled();
+            pageConsumer.accept(page);
+            processed[0] += page.size();
+            job.setProgress(processed[0], estimatedTotal > 0 ? Math.max(estimatedTotal, processed[0]) : 0);
+        };
+    }
+
+    private int readADUserPages(long lastSyncUSN, Consumer<List<Attributes>> pageConsumer) throws NamingException {
+        if (!isConnected()) {
+            throw new NamingException("There is no connection to the Active Directory.");
+        }
+        //TODO: set filter by config, e.g. load only enabled accounts
+        // get all fields needed for entities person and ad account
+        String[] attributes = {
+                Global.ADAttributes.DISPLAY_NAME,
+                Global.ADAttributes.DESCRIPTION,
+                Global.ADAttributes.ACCOUNT_EXPIRES,
+                Global.ADAttributes.SID,
+                Global.ADAttributes.LOGON_NAME,
+                Global.ADAttributes.DISTINGUISHED_NAME,
+                Global.ADAttributes.FIRST_NAME,
+                Global.ADAttributes.LAST_NAME,
+                Global.ADAttributes.DEPARTMENT,
+                Global.ADAttributes.EMAIL,
+                Global.ADAttributes.PHONE_NUMBER,
+                Global.ADAttributes.MOBILE_PHONE,
+                Global.ADAttributes.USER_ACCOUNT_CONTROL,
+                Global.ADAttributes.CREATION_TIME // possible employee entry date
+        };
+        DirectoryPageReader pageReader = new DirectoryPageReader(getConnectionPool(), pageSize);
+        return pageReader.read(DirectoryPageReader.changedSince(Global.LDAP_QUERY.USER_FILTER, lastSyncUSN),
+                attributes, pageConsumer);
+    }
+
+    private int readADGroupPages(long lastSyncUSN, Consumer<List<Attributes>> pageConsumer) throws NamingException {
+        if (!isConnected()) {
+            throw new NamingException("There is no connection to the Active Directory.");
+        }
+        // get all fields needed for entity ad group
+        String[] attributes = {
+                Global.ADAttributes.GROUP_TYPE,
+                Global.ADAttributes.DESCRIPTION,
+                Global.ADAttributes.SID,
+                Global.ADAttributes.COMMON_NAME,
+                Global.ADAttributes.DISTINGUISHED_NAME,
+                Global.ADAttributes.MEMBER
+        };
+        DirectoryPageReader pageReader = new DirectoryPageReader(getConnectionPool(), pageSize);
+        return pageReader.read(DirectoryPageReader.changedSince(Global.LDAP_QUERY.GROUP_FILTER, lastSyncUSN),
+                attributes, pageConsumer);
+    }
+
+    private long readHighestCommittedUSN() throws NamingException {
+        if (!isConnected()) {
+            throw new NamingException("There is no connection to the Active Directory.");
+        }
+        return new DirectoryPageReader(getConnectionPool(), pageSize).readHighestCommittedUSN();
+    }
+
+    // tombstone pass: remove the objects deleted in the AD since the last sync
+    // returns the number of deleted objects or -1, if the deleted objects could not be read
+    private int removeDeletedADObjects(long lastSyncUSN, String filter, Consumer<List<String>> deleteAction) {
+        int[] deleted = new int[1];
+        try {
+            DirectoryPageReader pageReader = new DirectoryPageReader(getConnectionPool(), pageSize);
+            pageReader.readDeleted(DirectoryPageReader.changedSince(filter, lastSyncUSN),
+                    new String[]{ Global.ADAttributes.SID }, page -> {
+                List<String> objectSIDs = new ArrayList<>(page.size());
+                for (Attributes attributes : page) {
+                    String objectSID = DirectoryPageReader.convertSidToString(DirectoryPageReader.getBytes(attributes, Global.ADAttributes.SID));
+                    if (!objectSID.isEmpty()) {
+                        objectSIDs.add(objectSID);
+                    }
                 }
+                transactionTemplate.executeWithoutResult(status -> deleteAction.accept(objectSIDs));
+                deleted[0] += objectSIDs.size();
+            });
+        } catch (NamingException exception) {
+            // e.g. missing permission to list the deleted objects, the import itself is valid
+            logger.warn("Reading the deleted objects from AD failed, the deleted objects are not removed.",
+                    exception);
+            addLogEntry(DELETED_OBJECTS_WARNING);
+            return -1;
+        }
+        return deleted[0];
+    }
+
+
+    // the existing AD users are loaded once per import, not once per account
+    private Map<String, Integer> loadADUserIdsBySID() {
+        List<Object[]> rows = adUserRepository.findAllObjectSIDsAndIds();
+        Map<String, Integer> adUserIdsBySID = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            adUserIdsBySID.put((String) row[0], (Integer) row[1]);
+        }
+        return adUserIdsBySID;
+    }
+
+    private int[] importADUserPage(List<Attributes> page, Map<String, Integer> adUserIdsBySID) {
+        int[] returnValues = new int[3]; // {added, updated, unchanged}
+        List<ADUser> newADUsers = new ArrayList<>();
+        Map<Integer, ADUser> updatedADUsers = new HashMap<>(page.size() * 2);
+        for (Attributes attributes : page) {
+            ADUser updatedADUser = adUserFromAttributes(attributes);
+            if (updatedADUser == null) {
+                continue;
+            }
+            Integer id = adUserIdsBySID.get(updatedADUser.getObjectSID());
+            if (id == null) {
+                newADUsers.add(updatedADUser);
+            } else {
+                updatedADUsers.put(id, updatedADUser);
+            }
+        }
+        // update the existing AD users, one query for the whole page
+        // only changed entities are written, the updates are sent in JDBC batches
+        for (ADUser adUser : adUserRepository.findAllById(updatedADUsers.keySet())) {
+            ADUser updatedADUser = updatedADUsers.get(adUser.getId());
+            // all attributes read from the AD can be changed
+            if (Objects.equals(adUser.getDistinguishedName(), updatedADUser.getDistinguishedName())
+                    && Objects.equals(adUser.getLogonName(), updatedADUser.getLogonName())
+                    && adUser.isAdminAccount() == updatedADUser.isAdminAccount()
+                    && adUser.isEnabled() == updatedADUser.isEnabled()
+                    && adUser.isPasswordExpires() == updatedADUser.isPasswordExpires()) {
+                returnValues[2]++;
+                continue;
             }
+            adUser.setDistinguishedName(updatedADUser.getDistinguishedName());
+            adUser.setLogonName(updatedADUser.getLogonName());
+            adUser.setAdminAccount(updatedADUser.isAdminAccount());
+            adUser.setEnabled(updatedADUser.isEnabled());
+            adUser.setPasswordExpires(updatedADUser.isPasswordExpires());
+            addLogEntry("AD user \"" + updatedADUser.getLogonName() + "\" updated.");
+            returnValues[1]++;
+        }
+        // insert the new AD users in JDBC batches
+        for (ADUser adUser : adUserRepository.saveAll(newADUsers)) {
+            adUserIdsBySID.put(adUser.getObjectSID(), adUser.getId());
+            addLogEntry("AD user \"" + adUser.getLogonName() + "\" added.");
+            returnValues[0]++;
         }
-        return new ArrayList<>();
+        return returnValues;
     }
 
-    private List<EntityResponse> getADGroupEntities() {
-        if (isConnected) {
-            QueryRequest queryRequest = createQueryRequest();
-            if (queryRequest != null) {
-                try {
-                    queryRequest.setObjectType(ObjectType.GROUP);
-                    // get all fields needed for entity ad group
-                    queryRequest.addRequestedField(Global.ADAttributes.GROUP_TYPE);
-                    queryRequest.addRequestedField(Global.ADAttributes.DESCRIPTION);
-                    queryRequest.addRequestedField(Global.ADAttributes.SID);
-                    queryRequest.addRequestedField(FieldType.COMMON_NAME);
-                    queryRequest.addRequestedField(FieldType.DISTINGUISHED_NAME);
-                    queryRequest.addRequestedField(FieldType.MEMBER);
-                    Connector connector = new Connector(queryRequest);
-                    QueryResponse queryResponse = connector.execute();
-                    logger.debug(queryResponse.getAll().size() + " group objects queried from AD.");
-                    return queryResponse.getAll();
-                } catch (Exception exception) {
-                    logger.debug("Error occurred while loading groups from AD.", exception);
-                }
+    @Nullable
+    private ADUser adUserFromAttributes(Attributes attributes) {
+        ADUser adUser = new ADUser();
+        String logonName = DirectoryPageReader.getString(attributes, Global.ADAttributes.LOGON_NAME);
+        if (logonName.isEmpty()) {
+            logger.debug("The logon name of an user could not be determined.");
+            return null;
+        }
+        adUser.setLogonName(logonName);
+        adUser.setAdminAccount(groupClassificationService.getGroupClassifier().isAdminName(logonName));
+        String distinguishedName = DirectoryPageReader.getString(attributes, Global.ADAttributes.DISTINGUISHED_NAME);
+        if (distinguishedName.isEmpty()) {
+            logger.debug("The distinguished name of an user could not be determined.");
+            return null;
+        }
+        adUser.setDistinguishedName(distinguishedName);
+        // account enabled / password expiration
+        String userAccountControl = DirectoryPageReader.getString(attributes, Global.ADAttributes.USER_ACCOUNT_CONTROL);
+        adUser.setEnabled(accountEnabled(userAccountControl));
+        adUser.setPasswordExpires(passwordExpires(userAccountControl));
+        String objectSidString = DirectoryPageReader.convertSidToString(DirectoryPageReader.getBytes(attributes, Global.ADAttributes.SID));
+        if (objectSidString.isEmpty()) {
+            logger.debug("The SID of an user could not be determined.");
+            return null;
+        }
+        adUser.setObjectSID(objectSidString);
+        return adUser;
+    }
+
+    // the existing AD groups are loaded once per import, not once per group
+    // the first role with the name of the group, as found by roleRepository.findFirstByName
+    private Map<Integer, Integer> loadRoleIdsByADGroupId() {
+        Map<String, Integer> roleIdsByName = new HashMap<>();
+        for (Object[] row : roleRepository.findAllNamesAndIds()) {
+            roleIdsByName.putIfAbsent((String) row[0], (Integer) row[1]);
+        }
+        Map<Integer, Integer> roleIdsByADGroupId = new HashMap<>();
+        for (Object[] row : adGroupRepository.findAllIdsAndNames()) {
+            Integer roleId = roleIdsByName.get((String) row[1]);
+            if (roleId != null) {
+                roleIdsByADGroupId.put((Integer) row[0], roleId);
             }
         }
-        return new ArrayList<>();
-    }
-
-    private List<ADGroup> getADGroupsForUser(ADUser adUser) {
-        List<ADGroup> adGroups = new ArrayList<>();
-        if (isConnected) {
-            try {
-                // get assigned AD groups of the AD user
-                List<String> logonNames = new ArrayList<>(1);
-                logonNames.add(adUser.getLogonName());
-                List<EntityResponse> entityResponses = DirectoryConnectorService.isMemberOf(logonNames, endpoint);
-                for (EntityResponse entityResponse: entityResponses) {
-                    List<Field> fields = entityResponse.getValue();
-                    for (Field field : fields) {
-                        FieldType fieldType = field.getType(); // can be null
-                        if (fieldType != null) {
-                            if (fieldType.equals(FieldType.COMMON_NAME)) {
-                                String adGroupName = (String) field.getValue();
-                                // add AD group with this name to the list
-                                Optional<ADGroup> optionalADGroup = adGroupRepository.findFirstByName(adGroupName);
-                                optionalADGroup.ifPresent(adGroups::add);
-                            }
-                        }
-                    }
+        return roleIdsByADGroupId;
+    }
+
+    // the first role of a name, as found by roleRepository.findFirstByName
+    private Map<String, RoleValues> loadRoleValuesByName() {
+        Map<String, RoleValues> roleValuesByName = new HashMap<>();
+        for (Object[] row : roleRepository.findAllNamesAndDerivedValues()) {
+            roleValuesByName.putIfAbsent((String) row[0], new RoleValues((Integer) row[1],
+                    (String) row[2], (Boolean) row[3], (Integer) row[4]));
+        }
+        return roleValuesByName;
+    }
+
+    // the maps are updated with the derived roles and assignments
+    private int[] deriveRolesFromADGroups(List<ADGroup> adGroups, GroupClassifier groupClassifier,
+                                          Map<String, RoleValues> roleValuesByName,
+                                          Map<Integer, Set<Integer>> adGroupIdsByRoleId) {
+        int added = 0, updated = 0, unchanged = 0;
+        Map<String, Role> newRolesByName = new LinkedHashMap<>();
+        Map<String, List<Integer>> adGroupIdsOfNewRoles = new HashMap<>();
+        Map<Integer, RoleValues> changedRoleValues = new HashMap<>();
+        List<Integer[]> newEdges = new ArrayList<>();
+        for (ADGroup adGroup : adGroups) {
+            String name = adGroup.getName();
+            GroupClassifier.Classification classification = groupClassifier.classify(adGroup);
+            RoleResource roleResource = getRoleResource(classification.roleResourceType());
+            RoleValues roleValues = roleValuesByName.get(name);
+            if (roleValues == null) {
+                // add new role from AD group, a second group with the same name updates it
+                Role role = newRolesByName.computeIfAbsent(name, key -> {
+                    Role newRole = new Role();
+                    newRole.setName(key);
+                    return newRole;
+                });
+                role.setDescription(adGroup.getDescription());
+                role.setAdminRole(classification.isAdmin());
+                if (roleResource != null) {
+                    role.setRoleResource(roleResource);
                 }
-            } catch (Exception exception) {
-                logger.debug("Error occurred while getting groups for user \""
-                        + adUser.getDistinguishedName() +  " from AD.", exception);
-                return adGroups;
+                adGroupIdsOfNewRoles.computeIfAbsent(name, key -> new ArrayList<>()).add(adGroup.getId());
+                continue;
+            }
+            RoleValues derivedValues = new RoleValues(roleValues.id(),
+                    adGroup.getDescription(), classification.isAdmin(),
+                    roleResource != null ? roleResource.getId() : roleValues.roleResourceId());
+            boolean isChanged = !derivedValues.equals(roleValues);
+            if (isChanged) {
+                changedRoleValues.put(roleValues.id(), derivedValues);
+                roleValuesByName.put(name, derivedValues);
+            }
+            if (adGroupIdsByRoleId.computeIfAbsent(roleValues.id(), key -> new HashSet<>()).add(adGroup.getId())) {
+                newEdges.add(new Integer[]{roleValues.id(), adGroup.getId()});
+                isChanged = true;
+            }
+            if (isChanged) {
+                updated++;
+            } else {
+                unchanged++;
+            }
+        }
+        // only the changed roles are loaded
+        for (Role role : roleRepository.findAllById(changedRoleValues.keySet())) {
+            RoleValues derivedValues = changedRoleValues.get(role.getId());
+            role.setDescription(derivedValues.description());
+            role.setAdminRole(derivedValues.isAdminRole());
+            if (derivedValues.roleResourceId() != null) {
+                role.setRoleResource(roleResourceRepository.getById(derivedValues.roleResourceId()));
+            }
+        }
+        // the ids of the new roles are needed for the assignments
+        roleRepository.saveAll(newRolesByName.values());
+        roleRepository.flush();
+        for (Role role : newRolesByName.values()) {
+            added++;
+            Integer roleResourceId = role.getRoleResource() != null ? role.getRoleResource().getId() : null;
+            roleValuesByName.put(role.getName(), new RoleValues(role.getId(), role.getDescription(),
+                    role.isAdminRole(), roleResourceId));
+            for (Integer adGroupId : adGroupIdsOfNewRoles.get(role.getName())) {
+                adGroupIdsByRoleId.computeIfAbsent(role.getId(), key -> new HashSet<>()).add(adGroupId);
+                newEdges.add(new Integer[]{role.getId(), adGroupId});
             }
         }
-        return adGroups;
+        roleAssignmentRepository.insertADGroups(newEdges);
+        entitlementRepository.refreshADGroups(newEdges.stream().map(edge -> edge[1]).toList());
+        return new int[]{added, updated, unchanged};
     }
 
-    private boolean[] createOrUpdateADUser(EntityResponse response) {
-        boolean[] returnValues = new boolean[2]; // {added, updated}
-        ADUser updatedADUser = new ADUser();
-        try {
-            boolean isUpdate = countADUsers() > 0;
-            List<Field> fields = response.getValue();
-            for (Field field : fields) {
-                FieldType fieldType = field.getType(); // can be null
-                if (fieldType != null) {
-                    if (fieldType.equals(FieldType.LOGON_NAME)) {
-                        String fieldString = (String) field.getValue();
-                        if (fieldString.isEmpty()) {
-                            logger.debug("The logon name of an user could not be determined.");
-                            return returnValues;
-                        }
-                        updatedADUser.setLogonName(fieldString);
-                    }
-                    if (fieldType.equals(FieldType.DISTINGUISHED_NAME)) {
-                        String fieldString = (String) field.getValue();
-                        if (fieldString.isEmpty()) {
-                            logger.debug("The distinguished name of an user could not be determined.");
-                            return returnValues;
-                        }
-                        updatedADUser.setDistinguishedName(fieldString);
-                    }
-                    // account enabled / password expiration
-                    if (fieldType.equals(FieldType.USER_ACCOUNT_CONTROL)) {
-                        updatedADUser.setEnabled(accountEnabled((String) field.getValue()));
-                        updatedADUser.setPasswordExpires(passwordExpires((String) field.getValue()));
-                    }
-                }
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.SID)) {
-                    String objectSidString = convertSidToString((byte[]) field.getValue());
-                    if (objectSidString.isEmpty()) {
-                        logger.debug("The SID of an user could not be determined.");
-                        return returnValues;
-                    }
-                    updatedADUser.setObjectSID(objectSidString);
-                }
+    private Map<String, Integer> loadADGroupIdsBySID() {
+        List<Object[]> rows = adGroupRepository.findAllObjectSIDsAndIds();
+        Map<String, Integer> adGroupIdsBySID = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            adGroupIdsBySID.put((String) row[0], (Integer) row[1]);
+        }
+        return adGroupIdsBySID;
+    }
+
+    private int[] importADGroupPage(List<Attributes> page, Map<String, Integer> adGroupIdsBySID,
+                                    Map<String, List<String>> memberDNsBySID) {
+        int[] returnValues = new int[3]; // {added, updated, unchanged}
+        List<ADGroup> newADGroups = new ArrayList<>();
+        Map<Integer, ADGroup> updatedADGroups = new HashMap<>(page.size() * 2);
+        for (Attributes attributes : page) {
+            ADGroup updatedADGroup = adGroupFromAttributes(attributes);
+            if (updatedADGroup == null) {
+                continue;
             }
-            if (isUpdate) {
-                Optional<ADUser> optionalADUser = adUserRepository.findFirstByObjectSID(updatedADUser.getObjectSID());
-                if (optionalADUser.isPresent()) {
-                    // update the existing AD user
-                    ADUser adUser = optionalADUser.get();
-                    // attributes can be changed
-                    adUser.setDistinguishedName(updatedADUser.getDistinguishedName());
-                    adUser.setLogonName(updatedADUser.getLogonName());
-                    adUser.setAdminAccount(isAdminByName(updatedADUser.getLogonName()));
-                    adUserRepository.save(adUser);
-                    addLogEntry("AD user \"" + updatedADUser.getLogonName() + "\" updated.");
-                    returnValues[1] = true; // update
-                } else {
-                    adUserRepository.save(updatedADUser);
-                    addLogEntry("AD user \"" + updatedADUser.getLogonName() + "\" added.");
-                    returnValues[0] = true; // add
-                }
+            memberDNsBySID.put(updatedADGroup.getObjectSID(),
+                    DirectoryPageReader.getStrings(attributes, Global.ADAttributes.MEMBER));
+            Integer id = adGroupIdsBySID.get(updatedADGroup.getObjectSID());
+            if (id == null) {
+                newADGroups.add(updatedADGroup);
             } else {
-                adUserRepository.save(updatedADUser);
-                addLogEntry("AD user \"" + updatedADUser.getLogonName() + "\" added.");
-                returnValues[0] = true; // add
+                updatedADGroups.put(id, updatedADGroup);
             }
-        } catch (Exception exception) {
-            logger.debug("Add or update AD user \"" + updatedADUser.getLogonName() + "\" failed: "
-                    + exception.getMessage());
+        }
+        // update the existing AD groups, one query for the whole page
+        // only changed entities are written, the updates are sent in JDBC batches
+        for (ADGroup adGroup : adGroupRepository.findAllById(updatedADGroups.keySet())) {
+            ADGroup updatedADGroup = updatedADGroups.get(adGroup.getId());
+            // all attributes read from the AD can be changed
+            if (Objects.equals(adGroup.getName(), updatedADGroup.getName())
+                    && Objects.equals(adGroup.getDistinguishedName(), updatedADGroup.getDistinguishedName())
+                    && adGroup.isAdminGroup() == updatedADGroup.isAdminGroup()
+                    && Objects.equals(adGroup.getDescription(), updatedADGroup.getDescription())
+                    && adGroup.getGroupType() == updatedADGroup.getGroupType()
+                    && adGroup.getGroupArea() == updatedADGroup.getGroupArea()) {
+                returnValues[2]++;
+                continue;
+            }
+            adGroup.setName(updatedADGroup.getName());
+            adGroup.setDistinguishedName(updatedADGroup.getDistinguishedName());
+            adGroup.setAdminGroup(updatedADGroup.isAdminGroup());
+            adGroup.setDescription(updatedADGroup.getDescription());
+            adGroup.setGroupType(updatedADGroup.getGroupType());
+            adGroup.setGroupArea(updatedADGroup.getGroupArea());
+            addLogEntry("AD group \"" + updatedADGroup.getName() + "\" updated.");
+            returnValues[1]++;
+        }
+        // insert the new AD groups in JDBC batches
+        for (ADGroup adGroup : adGroupRepository.saveAll(newADGroups)) {
+            adGroupIdsBySID.put(adGroup.getObjectSID(), adGroup.getId());
+            addLogEntry("AD group \"" + adGroup.getName() + "\" added.");
+            returnValues[0]++;
         }
         return returnValues;
     }
 
-    private boolean[] createOrUpdateADGroup(EntityResponse response) {
-        boolean[] returnValues = new boolean[2]; // {added, updated}
-        ADGroup updatedADGroup = new ADGroup();
-        try {
-            boolean isUpdate = countADGroups() > 0;
-            List<Field> fields = response.getValue();
-            for (Field field : fields) {
-                FieldType fieldType = field.getType(); // can be null
-                if (fieldType != null) {
-                    if (fieldType.equals(FieldType.COMMON_NAME)) {
-                        String fieldString = (String) field.getValue();
-                        if (fieldString.isEmpty()) {
-                            logger.debug("The name of a group could not be determined.");
-                            return returnValues;
-                        }
-                        updatedADGroup.setName(fieldString);
-                        // check for "admin group"
-                        updatedADGroup.setAdminGroup(isAdminByName(fieldString));
-                    }
-                    if (fieldType.equals(FieldType.DISTINGUISHED_NAME)) {
-                        String fieldString = (String) field.getValue();
-                        if (fieldString.isEmpty()) {
-                            logger.debug("The distinguished name of a group could not be determined.");
-                            return returnValues;
-                        }
-                        updatedADGroup.setDistinguishedName(fieldString);
-                    }
-                }
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.SID)) {
-                    String objectSidString = convertSidToString((byte[]) field.getValue());
-                    if (objectSidString.isEmpty()) {
-                        logger.debug("The SID of an user could not be determined.");
-                        return returnValues;
-                    }
-                    updatedADGroup.setObjectSID(objectSidString);
-                }
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.DESCRIPTION)) {
-                    // the length is set to 255 characters
-                    String description = (String) field.getValue();
-                    if (description.length() > Global.IMPORT_SETTINGS.MAX_STRING_LENGTH) {
-                        updatedADGroup.setDescription(description.substring(0, Global.IMPORT_SETTINGS.MAX_STRING_LENGTH - 1));
-                    } else {
-                        updatedADGroup.setDescription(description);
-                    }
+    // the distinguished names in the AD are not case-sensitive
+    private Map<String, Integer> loadADUserIdsByDN() {
+        List<Object[]> rows = adUserRepository.findAllDistinguishedNamesAndIds();
+        Map<String, Integer> adUserIdsByDN = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            adUserIdsByDN.put(((String) row[0]).toLowerCase(Locale.ROOT), (Integer) row[1]);
+        }
+        return adUserIdsByDN;
+    }
 
+    // writes only the difference between the memberships in the AD and in the database
+    private int[] importADGroupMembers(Map<String, List<String>> memberDNsBySID,
+                                       Map<String, Integer> adGroupIdsBySID,
+                                       Map<String, Integer> adUserIdsByDN,
+                                       Map<Integer, List<String>> memberGroupDNsByGroupId) {
+        int[] returnValues = new int[2]; // {added, removed}
+        Map<Integer, Set<Integer>> memberIdsByGroupId = new HashMap<>(memberDNsBySID.size() * 2);
+        for (Map.Entry<String, List<String>> entry : memberDNsBySID.entrySet()) {
+            Integer adGroupId = adGroupIdsBySID.get(entry.getKey());
+            if (adGroupId == null) {
+                continue;
+            }
+            Set<Integer> memberIds = new HashSet<>();
+            List<String> otherMemberDNs = new ArrayList<>();
+            for (String memberDN : entry.getValue()) {
+                // other members (groups, computers, contacts) are not imported as users
+                Integer adUserId = adUserIdsByDN.get(memberDN.toLowerCase(Locale.ROOT));
+                if (adUserId != null) {
+                    memberIds.add(adUserId);
+                } else {
+                    otherMemberDNs.add(memberDN);
                 }
-                // group area / group type
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.GROUP_TYPE)) {
-                    updatedADGroup.setGroupArea(groupAreaFromString((String) field.getValue()));
-                    updatedADGroup.setGroupType(groupTypeFromString((String) field.getValue()));
+            }
+            memberGroupDNsByGroupId.put(adGroupId, otherMemberDNs);
+            memberIdsByGroupId.put(adGroupId, memberIds);
+        }
+        Map<Integer, Set<Integer>> existingMemberIdsByGroupId =
+                adGroupMemberRepository.findMemberIds(memberIdsByGroupId.keySet());
+        List<Integer[]> newEdges = new ArrayList<>();
+        List<Integer[]> removedEdges = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Integer>> entry : memberIdsByGroupId.entrySet()) {
+            Integer adGroupId = entry.getKey();
+            Set<Integer> existingMemberIds = existingMemberIdsByGroupId.getOrDefault(adGroupId, Collections.emptySet());
+            for (Integer adUserId : entry.getValue()) {
+                if (!existingMemberIds.contains(adUserId)) {
+                    newEdges.add(new Integer[]{ adGroupId, adUserId });
                 }
             }
-            if (isUpdate) {
-                Optional<ADGroup> optionalADAGroup = adGroupRepository.findFirstByObjectSID(updatedADGroup.getObjectSID());
-                if (optionalADAGroup.isPresent()) {
-                    // update existing AD group
-                    ADGroup adGroup = optionalADAGroup.get();
-                    // attribute can be change
-                    adGroup.setName(updatedADGroup.getName());
-                    adGroup.setDistinguishedName(updatedADGroup.getDistinguishedName());
-                    adGroup.setAdminGroup(isAdminByName(updatedADGroup.getName()));
-                    adGroup.setDescription(updatedADGroup.getDescription());
-                    // save as updated object
-                    adGroupRepository.save(adGroup);
-                    addLogEntry("AD group \"" + updatedADGroup.getName() + "\" updated.");
-                    returnValues[1] = true; // update
-                } else {
-                    adGroupRepository.save(updatedADGroup);
-                    addLogEntry("AD group \"" + updatedADGroup.getName() + "\" added.");
-                    returnValues[0] = true; // add
+            for (Integer adUserId : existingMemberIds) {
+                if (!entry.getValue().contains(adUserId)) {
+                    removedEdges.add(new Integer[]{ adGroupId, adUserId });
                 }
-            } else {
-                adGroupRepository.save(updatedADGroup);
-                addLogEntry("AD group \"" + updatedADGroup.getName() + "\" added.");
-                returnValues[0] = true; // add
             }
-        } catch (Exception exception) {
-            logger.debug("Add or update AD group \"" + updatedADGroup.getName() + "\" failed: " + exception.getMessage());
         }
+        adGroupMemberRepository.insertAll(newEdges);
+        adGroupMemberRepository.deleteAll(removedEdges);
+        returnValues[0] = newEdges.size();
+        returnValues[1] = removedEdges.size();
         return returnValues;
     }
 
-    private boolean[] createOrUpdatePerson(EntityResponse response) {
-        boolean[] returnValues = new boolean[2]; // {added, updated}
-        Person updatedPerson = new Person();
-        try {
-            boolean isUpdate = countPersons() > 0;
-            List<Field> fields = response.getValue();
-            for (Field field : fields) {
-                FieldType fieldType = field.getType(); // can be null
-                if (fieldType != null) {
-                    // set values
-                    if (fieldType.equals(FieldType.LOGON_NAME)) {
-                        updatedPerson.setCentralAccountName((String) field.getValue());
-                        if (updatedPerson.getLastName().length() == 0) {
-                            // last name of person must be not empty
-                            updatedPerson.setLastName((String) field.getValue());
-                        }
-                    }
-                    if (fieldType.equals(FieldType.FIRST_NAME)) {
-                        updatedPerson.setFirstName((String) field.getValue());
-                    }
-                    if (fieldType.equals(FieldType.LAST_NAME)) {
-                        updatedPerson.setLastName((String) field.getValue());
-                    }
-                    if (fieldType.equals(FieldType.EMAIL)) {
-                        updatedPerson.setEmailAddress((String) field.getValue());
-                    }
-                    if (fieldType.equals(FieldType.PHONE_NUMBER)) {
-                        updatedPerson.setPhoneNumber((String) field.getValue());
-                    }
-                    if (fieldType.equals(FieldType.MOBILE_PHONE)) {
-                        updatedPerson.setMobilePhoneNumber((String) field.getValue());
-                    }
-                    if (fieldType.equals(FieldType.DEPARTMENT)) {
-                        updatedPerson.setDepartmentName((String) field.getValue());
-                    }
-                    if (fieldType.equals(FieldType.CREATION_TIME)) {
-                        // possible entry date
-                        // whenCreated in format e.g. 20111101000413.0Z
-                        try {
-                            String adDateString = ((String) field.getValue()).substring(0, 8);
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-                            Date convertedEntryDate = sdf.parse(adDateString);
-                            LocalDate entryDate = Instant.ofEpochMilli(convertedEntryDate.getTime())
-                                    .atZone(ZoneId.systemDefault())
-                                    .toLocalDate();
-                            updatedPerson.setEntryDate(entryDate);
-
-                        } catch (Exception exception) {
-                            updatedPerson.setEntryDate(Global.EMPLOYEE_DEFAULT_VALUES.ENTRY_DATE);
-                            logger.debug("Error while get the entry date from AD attribute 'whenCreated'");
-                        }
-
-                    }
-                }
-                // last name of person must be not empty
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.DISPLAY_NAME)) {
-                    if (updatedPerson.getLastName().length() == 0) {
-                        updatedPerson.setLastName((String) field.getValue());
-                    }
-                }
-                // description
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.DESCRIPTION)) {
-                    updatedPerson.setDescription((String) field.getValue());
-                }
-                // possible exit date
-                if (field.getName().equalsIgnoreCase(Global.ADAttributes.ACCOUNT_EXPIRES)) {
-                    // DateUtils.convertIntervalDate converts the 18-digit Active Directory timestamps,
-                    // also named 'Windows NT time format' or 'Win32 FILETIME or SYSTEMTIME'.
-                    try {
-                        String adDateString = (String) field.getValue();
-                        Date convertedExitDate = DateUtils.convertIntervalDate(adDateString);
-                        LocalDate exitDate = Instant.ofEpochMilli(convertedExitDate.getTime())
-                                .atZone(ZoneId.systemDefault())
-                                .toLocalDate().minusDays(1); // account is locked at 00:00
-                        // if account does not expire -> year is setting to 30828
-                        if (exitDate.isAfter(Global.EMPLOYEE_DEFAULT_VALUES.EXIT_DATE) ||
-                                (exitDate.isAfter(Global.EMPLOYEE_DEFAULT_VALUES.MIN_UPPER_DATE))){
-                            updatedPerson.setExitDate(exitDate);
-                        } else {
-                            updatedPerson.setExitDate(Global.EMPLOYEE_DEFAULT_VALUES.EXIT_DATE);
-                        }
-                    } catch (Exception exception) {
-                        updatedPerson.setExitDate(Global.EMPLOYEE_DEFAULT_VALUES.EXIT_DATE);
-                        logger.debug("Error while get the exit date from AD attribute "
-                                + Global.ADAttributes.ACCOUNT_EXPIRES, exception);
-                    }
-                }
+    @Nullable
+    private ADGroup adGroupFromAttributes(Attributes attributes) {
+        ADGroup adGroup = new ADGroup();
+        String name = DirectoryPageReader.getString(attributes, Global.ADAttributes.COMMON_NAME);
+        if (name.isEmpty()) {
+            logger.debug("The name of a group could not be determined.");
+            return null;
+        }
+        adGroup.setName(name);
+        String distinguishedName = DirectoryPageReader.getString(attributes, Global.ADAttributes.DISTINGUISHED_NAME);
+        if (distinguishedName.isEmpty()) {
+            logger.debug("The distinguished name of a group could not be determined.");
+            return null;
+        }
+        adGroup.setDistinguishedName(distinguishedName);
+        String objectSidString = DirectoryPageReader.convertSidToString(DirectoryPageReader.getBytes(attributes, Global.ADAttributes.SID));
+        if (objectSidString.isEmpty()) {
+            logger.debug("The SID of a group could not be determined.");
+            return null;
+        }
+        adGroup.setObjectSID(objectSidString);
+        // the length is set to 255 characters
+        String description = DirectoryPageReader.getString(attributes, Global.ADAttributes.DESCRIPTION);
+        if (description.length() > Global.IMPORT_SETTINGS.MAX_STRING_LENGTH) {
+            adGroup.setDescription(description.substring(0, Global.IMPORT_SETTINGS.MAX_STRING_LENGTH - 1));
+        } else {
+            adGroup.setDescription(description);
+        }
+        // group area / group type
+        String groupType = DirectoryPageReader.getString(attributes, Global.ADAttributes.GROUP_TYPE);
+        adGroup.setGroupArea(groupAreaFromString(groupType));
+        adGroup.setGroupType(groupTypeFromString(groupType));
+        // check for "admin group"
+        adGroup.setAdminGroup(groupClassificationService.getGroupClassifier().classify(adGroup).isAdmin());
+        return adGroup;
+    }
+
+    private int[] importPersonPage(List<Attributes> page) {
+        int[] returnValues = new int[2]; // {added, updated}
+        Map<String, Person> updatedPersons = new LinkedHashMap<>(page.size());
+        for (Attributes attributes : page) {
+            Person updatedPerson = personFromAttributes(attributes);
+            if (!updatedPerson.getCentralAccountName().isEmpty()) {
+                updatedPersons.put(updatedPerson.getCentralAccountName(), updatedPerson);
             }
-            if (isUpdate) {
-                Optional<Person> optionalPerson = personRepository.findByAdUsers_LogonName(updatedPerson.getCentralAccountName());
-                if (optionalPerson.isPresent()) {
-                    Person person = optionalPerson.get();
-                    // attribute can be changed
-                    person.setFirstName(updatedPerson.getFirstName());
-                    person.setLastName(updatedPerson.getLastName());
-                    person.setDepartmentName(updatedPerson.getDepartmentName());
-                    person.setEmailAddress(updatedPerson.getEmailAddress());
-                    person.setPhoneNumber(updatedPerson.getPhoneNumber());
-                    person.setMobilePhoneNumber(updatedPerson.getMobilePhoneNumber());
-                    person.setEntryDate(updatedPerson.getEntryDate());
-                    person.setExitDate(updatedPerson.getExitDate());
-                    // save as updated object
-                    personRepository.save(person);
-                    addLogEntry("Person \"" + updatedPerson.getCentralAccountName() + "\" updated.");
-                    returnValues[1] = true; // update
-                } else {
-                    personRepository.save(updatedPerson);
-                    addLogEntry("Person \"" + updatedPerson.getCentralAccountName() + "\" added.");
-                    returnValues[0] = true; // add
-                }
+        }
+        // update the existing persons, one query for the whole page
+        List<Person> persons = new ArrayList<>();
+        Set<Integer> updatedPersonIds = new HashSet<>();
+        List<Object[]> rows = updatedPersons.isEmpty()
+                ? List.of() : personRepository.findLogonNamesAndPersons(updatedPersons.keySet());
+        for (Object[] row : rows) {
+            Person person = (Person) row[1];
+            // a person with more than one account is updated once
+            if (updatedPersonIds.contains(person.getId())) {
+                continue;
+            }
+            // the logon name is not unique, a name of a removed account may be reused
+            Person updatedPerson = updatedPersons.remove((String) row[0]);
+            if (updatedPerson == null) {
+                continue;
+            }
+            updatedPersonIds.add(person.getId());
+            persons.add(person);
+            // attribute can be changed
+            person.setFirstName(updatedPerson.getFirstName());
+            person.setLastName(updatedPerson.getLastName());
+            person.setDepartmentName(updatedPerson.getDepartmentName());
+            person.setEmailAddress(updatedPerson.getEmailAddress());
+            person.setPhoneNumber(updatedPerson.getPhoneNumber());
+            person.setMobilePhoneNumber(updatedPerson.getMobilePhoneNumber());
+            person.setEntryDate(updatedPerson.getEntryDate());
+            person.setExitDate(updatedPerson.getExitDate());
+            addLogEntry("Person \"" + updatedPerson.getCentralAccountName() + "\" updated.");
+            returnValues[1]++;
+        }
+        // the remaining persons are new
+        for (Person updatedPerson : updatedPersons.values()) {
+            persons.add(updatedPerson);
+            addLogEntry("Person \"" + updatedPerson.getCentralAccountName() + "\" added.");
+            returnValues[0]++;
+        }
+        personRepository.saveAll(persons);
+        return returnValues;
+    }
+
+    private Person personFromAttributes(Attributes attributes) {
+        Person person = new Person();
+        person.setCentralAccountName(DirectoryPageReader.getString(attributes, Global.ADAttributes.LOGON_NAME));
+        person.setFirstName(DirectoryPageReader.getString(attributes, Global.ADAttributes.FIRST_NAME));
+        person.setLastName(DirectoryPageReader.getString(attributes, Global.ADAttributes.LAST_NAME));
+        // last name of person must be not empty
+        if (person.getLastName().length() == 0) {
+            person.setLastName(DirectoryPageReader.getString(attributes, Global.ADAttributes.DISPLAY_NAME));
+        }
+        if (person.getLastName().length() == 0) {
+            person.setLastName(person.getCentralAccountName());
+        }
+        person.setEmailAddress(DirectoryPageReader.getString(attributes, Global.ADAttributes.EMAIL));
+        person.setPhoneNumber(DirectoryPageReader.getString(attributes, Global.ADAttributes.PHONE_NUMBER));
+        person.setMobilePhoneNumber(DirectoryPageReader.getString(attributes, Global.ADAttributes.MOBILE_PHONE));
+        person.setDepartmentName(DirectoryPageReader.getString(attributes, Global.ADAttributes.DEPARTMENT));
+        person.setDescription(DirectoryPageReader.getString(attributes, Global.ADAttributes.DESCRIPTION));
+        // possible entry date
+        // whenCreated in format e.g. 20111101000413.0Z
+        try {
+            String adDateString = DirectoryPageReader.getString(attributes, Global.ADAttributes.CREATION_TIME)
+                    .substring(0, 8);
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
+            Date convertedEntryDate = sdf.parse(adDateString);
+            LocalDate entryDate = Instant.ofEpochMilli(convertedEntryDate.getTime())
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate();
+            person.setEntryDate(entryDate);
+        } catch (Exception exception) {
+            person.setEntryDate(Global.EMPLOYEE_DEFAULT_VALUES.ENTRY_DATE);
+            logger.debug("Error while get the entry date from AD attribute 'whenCreated'");
+        }
+        // possible exit date
+        // DateUtils.convertIntervalDate converts the 18-digit Active Directory timestamps,
+        // also named 'Windows NT time format' or 'Win32 FILETIME or SYSTEMTIME'.
+        try {
+            String adDateString = DirectoryPageReader.getString(attributes, Global.ADAttributes.ACCOUNT_EXPIRES);
+            Date convertedExitDate = DateUtils.convertIntervalDate(adDateString);
+            LocalDate exitDate = Instant.ofEpochMilli(convertedExitDate.getTime())
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate().minusDays(1); // account is locked at 00:00
+            // if account does not expire -> year is setting to 30828
+            if (exitDate.isAfter(Global.EMPLOYEE_DEFAULT_VALUES.EXIT_DATE) ||
+                    (exitDate.isAfter(Global.EMPLOYEE_DEFAULT_VALUES.MIN_UPPER_DATE))){
+                person.setExitDate(exitDate);
             } else {
-                personRepository.save(updatedPerson);
-                addLogEntry("Person \"" + updatedPerson.getCentralAccountName() + "\" added.");
-                returnValues[0] = true; // add
+                person.setExitDate(Global.EMPLOYEE_DEFAULT_VALUES.EXIT_DATE);
             }
         } catch (Exception exception) {
-            logger.debug("Add or update person \"" + updatedPerson.getCentralAccountName() + "\" failed: "
-                    + exception.getMessage());
+            person.setExitDate(Global.EMPLOYEE_DEFAULT_VALUES.EXIT_DATE);
+            logger.debug("Error while get the exit date from AD attribute "
+                    + Global.ADAttributes.ACCOUNT_EXPIRES, exception);
         }
-        return returnValues;
+        return person;
     }
 
-    // @see https://administrator.de/forum/mit-java-sid-des-angemeldeten-benutzers-auslesen-und-in-variable-schreiben-336662.html
-    private String convertSidToString(byte[] sid) {
-        try {
-            if (sid == null) {
-                return "";
+    // the search column is in lower case ==> AbstractEntity#toSearchText
+    private static String searchTerm(@Nullable String stringFilter) {
+        return Objects.requireNonNullElse(stringFilter, "").strip().toLowerCase(Locale.ROOT);
+    }
+
+    // computed columns are sorted by their expression, the id keeps the order of the pages stable
+    private static Pageable listItemPageable(Pageable pageable, String defaultProperty,
+                                             Map<String, String> sortExpressions) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            String expression = sortExpressions.get(order.getProperty());
+            if (expression == null) {
+                orders.add(order);
+            } else {
+                JpaSort.unsafe(order.getDirection(), expression).forEach(orders::add);
             }
-            if (sid.length < 8 || sid.length % 4 != 0) {
-                return "";
+        }
+        if (orders.isEmpty()) {
+            orders.add(Sort.Order.asc(defaultProperty));
+        }
+        orders.add(Sort.Order.asc("id"));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
+    }
+
+    // hash join on the case-insensitive logon name, only the changed links are written
+    private int linkADUsersWithPersons(JobContext job) {
+        Map<String, Integer> personIdsByAccountName = new HashMap<>();
+        for (Object[] row : personRepository.findAllCentralAccountNamesAndIds()) {
+            // the first person wins, if the account name is used more than once
+            personIdsByAccountName.putIfAbsent(((String) row[0]).toLowerCase(Locale.ROOT), (Integer) row[1]);
+        }
+        Map<Integer, Integer> personIdsByADUserId = new HashMap<>();
+        for (Object[] row : adUserRepository.findAllLogonNamesAndPersonIds()) {
+            if (row[0] == null) {
+                continue;
             }
-            StringBuilder sb = new StringBuilder();
-            sb.append("S-").append(sid[0]);
-            int c = sid[1];
-            ByteBuffer bb = ByteBuffer.wrap(sid);
-            sb.append("-").append(bb.getLong() & 0XFFFFFFFFFFFFL);
-            bb.order(ByteOrder.LITTLE_ENDIAN);
-            for (int i = 0; i < c; i++) {
-                sb.append("-").append((long) bb.getInt() & 0xFFFFFFFFL);
+            Integer personId = personIdsByAccountName.get(((String) row[0]).toLowerCase(Locale.ROOT));
+            if (personId != null && !personId.equals(row[2])) {
+                personIdsByADUserId.put((Integer) row[1], personId);
             }
-            return sb.toString();
-        } catch (Exception exception) {
-            logger.debug("Error while converting SID to String.", exception);
-            return "";
         }
+        List<Integer> adUserIds = new ArrayList<>(personIdsByADUserId.keySet());
+        for (int fromIndex = 0; fromIndex < adUserIds.size(); fromIndex += LINK_CHUNK_SIZE) {
+            job.checkCancelled();
+            List<Integer> chunk = adUserIds.subList(fromIndex, Math.min(fromIndex + LINK_CHUNK_SIZE, adUserIds.size()));
+            // the changed accounts are written in JDBC batches on commit
+            transactionTemplate.executeWithoutResult(status -> {
+                for (ADUser adUser : adUserRepository.findAllById(chunk)) {
+                    adUser.setPerson(personRepository.getById(personIdsByADUserId.get(adUser.getId())));
+                }
+            });
+        }
+        return adUserIds.size();
     }
 
+    private static void sumUp(int[] counts, int[] pageCounts) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += pageCounts[i];
+        }
+    }
+
+    // @see https://administrator.de/forum/mit-java-sid-des-angemeldeten-benutzers-auslesen-und-in-variable-schreiben-336662.html
+
     private boolean accountEnabled(String flag) {
         /*
             AD attribute userAccountControl contains the flag
@@ -1415,52 +2015,6 @@ public class IdentityService {
         return Global.ADGroupType.SECURITY;
     }
 
-    private boolean isAdminByName(String name) {
-        Pattern pattern = Pattern.compile(Pattern.quote(Global.IMPORT_SETTINGS.ADMIN_GROUP_TEXT),
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(name);
-        return matcher.find();
-    }
-
-    @Nullable
-    private RoleResource getRoleResourceByADGroup(ADGroup adGroup) {
-        String name = adGroup.getName();
-        RoleResource roleResource;
-        if (isProjectRoleByName(name)) {
-            roleResource = getRoleResource(Global.ROLE_RESOURCE.PROJECT_ROLE);
-        } else if (isFileShareRoleByName(name)) {
-            roleResource = getRoleResource(Global.ROLE_RESOURCE.FILE_SHARE_ROLE);
-        } else if (isEmailRoleByADGroup(adGroup)) {
-            roleResource = getRoleResource(Global.ROLE_RESOURCE.EMAIL_RESOURCE_ROLE);
-        } else {
-            roleResource = getRoleResource(Global.ROLE_RESOURCE.DEFAULT_ROLE);
-        }
-        return roleResource;
-    }
-
-    private boolean isProjectRoleByName(String name) {
-        Pattern pattern = Pattern.compile(Pattern.quote(Global.IMPORT_SETTINGS.PROJECT_ROLE_TEXT),
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(name);
-        return matcher.find();
-    }
-
-    private boolean isFileShareRoleByName(String name) {
-        Pattern pattern = Pattern.compile(Pattern.quote(Global.IMPORT_SETTINGS.FILE_SHARE_ROLE_TEXT),
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(name);
-        return matcher.find();
-    }
-    
-    private boolean isEmailRoleByADGroup(ADGroup adGroup) {
-        String name = adGroup.getName();
-        Pattern pattern = Pattern.compile(Pattern.quote(Global.IMPORT_SETTINGS.EMAIL_ROLE_TEXT),
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(name);
-        return (matcher.find() || adGroup.getGroupType() == Global.ADGroupType.DISTRIBUTION
-                || adGroup.getGroupArea() == Global.ADGroupArea.UNIVERSAL);
-    }
-
     private void addLogEntry(String message) {
         logger.debug("This action was triggered by \"" + sessionUserName + "\": " + message);
     }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.util.JobProgressEvent;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * The state of a running job, passed to the work of the job.
+ * The work reports the progress and stops if the job was cancelled.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+public class JobContext {
+    // avoid an event for every processed object
+    private static final double MIN_PROGRESS_STEP = 0.01;
+    private final String jobType;
+    private final Consumer<Object> eventPublisher;
+    private final Integer jobHistoryId, resumeAfterId;
+    private volatile boolean isCancelled;
+    private volatile Integer checkpointId;
+    private double lastProgress = -1;
+
+    /**
+     * Create a context for work which runs outside the job service.
+     *
+     * @param jobType of the work
+     */
+    public JobContext(String jobType) {
+        this(jobType, event -> {}, null, null);
+    }
+
+    JobContext(String jobType, Consumer<Object> eventPublisher, Integer jobHistoryId, Integer resumeAfterId) {
+        this.jobType = jobType;
+        this.eventPublisher = eventPublisher;
+        this.jobHistoryId = jobHistoryId;
+        this.resumeAfterId = resumeAfterId;
+        checkpointId = resumeAfterId;
+    }
+
+    public String getJobType() {
+        return jobType;
+    }
+
+    /**
+     * @return the id of the job history entry, null for work outside the job service
+     */
+    public Integer getJobHistoryId() {
+        return jobHistoryId;
+    }
+
+    /**
+     * @return the checkpoint of the last cancelled or failed run of the job, null to start from the beginning
+     */
+    public Integer getResumeAfterId() {
+        return resumeAfterId;
+    }
+
+    /**
+     * Report the progress of the job.
+     *
+     * @param done number of processed objects
+     * @param total number of all objects, 0 if unknown
+     */
+    public void setProgress(int done, int total) {
+        double progress = total > 0 ? Math.min(1.0, (double) done / total) : -1;
+        if (progress >= 0 && lastProgress >= 0 && progress - lastProgress < MIN_PROGRESS_STEP && progress < 1.0) {
+            return;
+        }
+        lastProgress = progress;
+        eventPublisher.accept(new JobProgressEvent(this, jobType, progress));
+    }
+
+    /**
+     * @return the highest id of the last committed chunk
+     */
+    public Integer getCheckpointId() {
+        return checkpointId;
+    }
+
+    void setCheckpointId(Integer checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Stop the work, if the job was cancelled.
+     *
+     * @throws CancellationException if the job was cancelled
+     */
+    public void checkCancelled() {
+        if (isCancelled) {
+            throw new CancellationException("The job \"" + jobType + "\" was cancelled.");
+        }
+    }
+
+    void cancel() {
+        isCancelled = true;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.Global;
+import de.hirola.adroles.data.entity.JobHistory;
+import de.hirola.adroles.data.repository.JobHistoryRepository;
+import de.hirola.adroles.util.ServiceEvent;
+import de.hirola.adroles.util.ServiceResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the long-running actions (imports, assignments) as background jobs.
+ * <p>
+ * The jobs run in a bounded executor, more jobs are queued up to the queue capacity.
+ * Only one job of a type can be queued or running at the same time, also the jobs changing
+ * the same data (e.g. the imports of persons and users) are not queued together. Every run is
+ * recorded in the job history. When a job is finished, a {@link ServiceEvent} with the result
+ * is published. If the last run of a job type was cancelled or failed, the next run gets
+ * the checkpoint of the last run to continue after the committed chunks.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class JobService {
+    // the jobs of a group change or read the same data and run one after the other
+    private static final List<Set<String>> CONFLICTING_JOB_TYPES = List.of(
+            // accounts, persons and memberships
+            Set.of(Global.JOB_TYPE.UPDATE_PERSONS_FROM_AD,
+                    Global.JOB_TYPE.UPDATE_USERS_FROM_AD,
+                    Global.JOB_TYPE.UPDATE_GROUPS_FROM_AD,
+                    Global.JOB_TYPE.UPDATE_ORG_ROLES_FROM_PERSONS,
+                    Global.JOB_TYPE.ASSIGN_PERSONS_TO_ROLES,
+                    Global.JOB_TYPE.SCHEDULED_SYNC),
+            // roles and their assignments
+            Set.of(Global.JOB_TYPE.UPDATE_GROUPS_FROM_AD,
+                    Global.JOB_TYPE.UPDATE_ORG_ROLES_FROM_PERSONS,
+                    Global.JOB_TYPE.UPDATE_ROLES_FROM_GROUPS,
+                    Global.JOB_TYPE.ASSIGN_PERSONS_TO_ROLES,
+                    Global.JOB_TYPE.SCHEDULED_SYNC));
+    private final Logger logger = LoggerFactory.getLogger(JobService.class);
+    private final JobHistoryRepository jobHistoryRepository;
+    private final StatisticsService statisticsService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ActiveJob> activeJobs = new ConcurrentHashMap<>();
+
+    private record ActiveJob(JobContext context, FutureTask<Void> task, JobHistory history,
+                             Consumer<Object> eventPublisher) {}
+
+    public JobService(JobHistoryRepository jobHistoryRepository, StatisticsService statisticsService,
+                      @Value("${adroles.jobs.maxParallel:2}") int maxParallel,
+                      @Value("${adroles.jobs.queueCapacity:10}") int queueCapacity) {
+        this.jobHistoryRepository = jobHistoryRepository;
+        this.statisticsService = statisticsService;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(Math.max(1, maxParallel), Math.max(1, maxParallel),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> new Thread(runnable, "adroles-job-" + threadCount.incrementAndGet()));
+        // the jobs of an old run are not running anymore
+        List<JobHistory> unfinishedJobs = jobHistoryRepository.findByStateIn(
+                List.of(Global.JOB_STATE.QUEUED, Global.JOB_STATE.RUNNING));
+        for (JobHistory jobHistory : unfinishedJobs) {
+            jobHistory.setState(Global.JOB_STATE.CANCELLED);
+            jobHistory.setResultMessage("The application was stopped.");
+        }
+        jobHistoryRepository.saveAll(unfinishedJobs);
+    }
+
+    /**
+     * Queue a job. The job is rejected, if a job of the same type or a conflicting job
+     * is queued or running or if the queue is full.
+     *
+     * @param jobType of the job ==> Global.JOB_TYPE
+     * @param startedBy name of the user
+     * @param work of the job
+     * @param eventPublisher to publish the progress and the result of the job
+     * @return the result of the submission, not the result of the job
+     */
+    public synchronized ServiceResult submit(String jobType, String startedBy,
+                                             Function<JobContext, ServiceResult> work,
+                                             Consumer<Object> eventPublisher) {
+        if (activeJobs.containsKey(jobType)) {
+            String resultMessage = "The job \"" + jobType + "\" is already queued or running.";
+            logger.debug(resultMessage);
+            return new ServiceResult(false, resultMessage);
+        }
+        String conflictingJobType = findConflictingJobType(jobType);
+        if (conflictingJobType != null) {
+            String resultMessage = "The job \"" + jobType + "\" can not be started while the job \""
+                    + conflictingJobType + "\" is queued or running.";
+            logger.debug(resultMessage);
+            return new ServiceResult(false, resultMessage);
+        }
+        // continue after the last committed chunk of an unfinished run
+        Integer resumeAfterId = jobHistoryRepository.findFirstByJobTypeOrderByQueuedAtDesc(jobType)
+                .filter(lastJob -> lastJob.getState() != Global.JOB_STATE.SUCCEEDED)
+                .map(JobHistory::getCheckpointId)
+                .orElse(null);
+        JobHistory jobHistory = new JobHistory();
+        jobHistory.setJobType(jobType);
+        jobHistory.setStartedBy(startedBy);
+        jobHistory.setQueuedAt(LocalDateTime.now());
+        // kept, if this run stops before the first chunk
+        jobHistory.setCheckpointId(resumeAfterId);
+        JobHistory queuedJob = jobHistoryRepository.save(jobHistory);
+        JobContext jobContext = new JobContext(jobType, eventPublisher, queuedJob.getId(), resumeAfterId);
+        FutureTask<Void> task = new FutureTask<>(() -> run(queuedJob, jobContext, work, eventPublisher), null);
+        activeJobs.put(jobType, new ActiveJob(jobContext, task, queuedJob, eventPublisher));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException exception) {
+            activeJobs.remove(jobType);
+            String resultMessage = "Too many jobs are queued, the job \"" + jobType + "\" was rejected.";
+            finish(queuedJob, Global.JOB_STATE.CANCELLED, resultMessage);
+            logger.debug(resultMessage);
+            return new ServiceResult(false, resultMessage);
+        }
+        return new ServiceResult(true, "The job \"" + jobType + "\" was queued.");
+    }
+
+    /**
+     * Cancel a queued or running job. A running job stops at the next check.
+     *
+     * @param jobType of the job ==> Global.JOB_TYPE
+     * @return true, if a job of this type was queued or running
+     */
+    public synchronized boolean cancel(String jobType) {
+        ActiveJob activeJob = activeJobs.get(jobType);
+        if (activeJob == null) {
+            return false;
+        }
+        activeJob.context().cancel();
+        if (executor.remove(activeJob.task())) {
+            // not started yet
+            activeJobs.remove(jobType);
+            String resultMessage = "The job \"" + jobType + "\" was cancelled.";
+            finish(activeJob.history(), Global.JOB_STATE.CANCELLED, resultMessage);
+            activeJob.eventPublisher().accept(new ServiceEvent(this, new ServiceResult(false, resultMessage)));
+        }
+        return true;
+    }
+
+    public boolean isActive(String jobType) {
+        return activeJobs.containsKey(jobType);
+    }
+
+    /**
+     * Find a queued or running job, which changes or reads the same data as the job.
+     *
+     * @param jobType of the job ==> Global.JOB_TYPE
+     * @return the type of a conflicting job or null, if there is none
+     */
+    public synchronized @Nullable String findConflictingJobType(String jobType) {
+        for (Set<String> jobTypes : CONFLICTING_JOB_TYPES) {
+            if (!jobTypes.contains(jobType)) {
+                continue;
+            }
+            for (String activeJobType : activeJobs.keySet()) {
+                if (!activeJobType.equals(jobType) && jobTypes.contains(activeJobType)) {
+                    return activeJobType;
+                }
+            }
+        }
+        return null;
+    }
+
+    public List<JobHistory> findLatestJobs() {
+        return jobHistoryRepository.findTop50ByOrderByQueuedAtDesc();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ActiveJob activeJob : activeJobs.values()) {
+            activeJob.context().cancel();
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(JobHistory jobHistory, JobContext jobContext, Function<JobContext, ServiceResult> work,
+                     Consumer<Object> eventPublisher) {
+        ServiceResult serviceResult;
+        try {
+            jobHistory.setState(Global.JOB_STATE.RUNNING);
+            jobHistory.setStartedAt(LocalDateTime.now());
+            jobHistory = jobHistoryRepository.save(jobHistory);
+            serviceResult = work.apply(jobContext);
+        } catch (Exception exception) {
+            logger.debug("The job \"" + jobHistory.getJobType() + "\" failed.", exception);
+            serviceResult = new ServiceResult(false, exception.getMessage());
+        }
+        try {
+            int state;
+            if (jobContext.isCancelled()) {
+                state = Global.JOB_STATE.CANCELLED;
+                serviceResult = new ServiceResult(false, "The job \"" + jobHistory.getJobType() + "\" was cancelled.");
+            } else {
+                state = serviceResult.operationSuccessful ? Global.JOB_STATE.SUCCEEDED : Global.JOB_STATE.FAILED;
+            }
+            // the checkpoint is saved with every chunk, keep it when saving the history
+            jobHistory.setCheckpointId(jobContext.getCheckpointId());
+            finish(jobHistory, state, serviceResult.resultMessage);
+        } finally {
+            // after the final state is saved, a new run must not resume from a running job
+            activeJobs.remove(jobHistory.getJobType());
+        }
+        // also a failed or cancelled job may have committed changes
+        statisticsService.invalidate();
+        eventPublisher.accept(new ServiceEvent(this, serviceResult));
+    }
+
+    private void finish(JobHistory jobHistory, int state, String resultMessage) {
+        try {
+            jobHistory.setState(state);
+            jobHistory.setFinishedAt(LocalDateTime.now());
+            // the length is set to 255 characters
+            if (resultMessage != null && resultMessage.length() > Global.IMPORT_SETTINGS.MAX_STRING_LENGTH) {
+                resultMessage = resultMessage.substring(0, Global.IMPORT_SETTINGS.MAX_STRING_LENGTH - 1);
+            }
+            jobHistory.setResultMessage(resultMessage);
+            jobHistoryRepository.save(jobHistory);
+        } catch (Exception exception) {
+            logger.debug("The job history of \"" + jobHistory.getJobType() + "\" could not be saved.", exception);
+        }
+    }
+}
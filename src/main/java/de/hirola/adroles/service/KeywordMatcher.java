@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds all keywords contained in a text with one pass over the text (Aho-Corasick automaton).
+ * The comparison ignores the case.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+class KeywordMatcher {
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<int[]> outputs = new ArrayList<>();
+    private int[] failures;
+
+    /**
+     * Build the automaton.
+     *
+     * @param keywords to find, the index of a keyword in the list is reported for a match
+     */
+    KeywordMatcher(List<String> keywords) {
+        addState();
+        for (int index = 0; index < keywords.size(); index++) {
+            String keyword = keywords.get(index).toLowerCase(Locale.ROOT);
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (char character : keyword.toCharArray()) {
+                Integer next = transitions.get(state).get(character);
+                if (next == null) {
+                    next = addState();
+                    transitions.get(state).put(character, next);
+                }
+                state = next;
+            }
+            outputs.set(state, append(outputs.get(state), index));
+        }
+        buildFailures();
+    }
+
+    boolean isEmpty() {
+        return transitions.size() == 1;
+    }
+
+    /**
+     * Report the index of every keyword in the text, a keyword may be reported more than once.
+     *
+     * @param text to search in
+     * @param matchConsumer receives the index of the found keywords
+     */
+    void findAll(String text, IntConsumer matchConsumer) {
+        if (text == null || isEmpty()) {
+            return;
+        }
+        int state = 0;
+        for (char character : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            state = next(state, character);
+            for (int index : outputs.get(state)) {
+                matchConsumer.accept(index);
+            }
+        }
+    }
+
+    private int next(int state, char character) {
+        Integer next = transitions.get(state).get(character);
+        while (next == null && state != 0) {
+            state = failures[state];
+            next = transitions.get(state).get(character);
+        }
+        return next == null ? 0 : next;
+    }
+
+    // breadth first, the failure of a state points to the longest suffix which is also a prefix of a keyword
+    private void buildFailures() {
+        failures = new int[transitions.size()];
+        Deque<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+                int child = transition.getValue();
+                failures[child] = state == 0 ? 0 : next(failures[state], transition.getKey());
+                // the keywords ending in the suffix also end here
+                int[] suffixOutputs = outputs.get(failures[child]);
+                for (int index : suffixOutputs) {
+                    outputs.set(child, append(outputs.get(child), index));
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private int addState() {
+        transitions.add(new HashMap<>());
+        outputs.add(new int[0]);
+        return transitions.size() - 1;
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] extended = Arrays.copyOf(values, values.length + 1);
+        extended[values.length] = value;
+        return extended;
+    }
+}
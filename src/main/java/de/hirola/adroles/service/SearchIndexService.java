@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.data.repository.ADGroupRepository;
+import de.hirola.adroles.data.repository.ADUserRepository;
+import de.hirola.adroles.data.repository.PersonRepository;
+import de.hirola.adroles.data.repository.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Prepares the search column of persons, roles, AD users and AD groups.
+ * <p>
+ * The search column contains the searchable values in lower case and is written by the entities.
+ * Rows without search text (written by an older version) are filled at startup.
+ * On PostgreSQL the column has a trigram index (migration in <i>db/migration/postgresql</i>),
+ * so a search for a part of a value does not read the whole table. Other databases scan the single column.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class SearchIndexService {
+    private final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+    private final PersonRepository personRepository;
+    private final RoleRepository roleRepository;
+    private final ADUserRepository adUserRepository;
+    private final ADGroupRepository adGroupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public SearchIndexService(PersonRepository personRepository, RoleRepository roleRepository,
+                              ADUserRepository adUserRepository, ADGroupRepository adGroupRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.roleRepository = roleRepository;
+        this.adUserRepository = adUserRepository;
+        this.adGroupRepository = adGroupRepository;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void prepareSearch() {
+        try {
+            Integer filledRows = transactionTemplate.execute(status -> personRepository.fillMissingSearchText()
+                    + roleRepository.fillMissingSearchText()
+                    + adUserRepository.fillMissingSearchText()
+                    + adGroupRepository.fillMissingSearchText());
+            if (filledRows != null && filledRows > 0) {
+                logger.debug("Search text of " + filledRows + " rows filled.");
+            }
+        } catch (DataAccessException exception) {
+            logger.debug("The search text could not be filled.", exception);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.service;
+
+import de.hirola.adroles.data.projection.DashboardStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Provides the numbers of the dashboard.
+ * <p>
+ * All numbers are read with one query. The result is kept for a short time, so the dashboards
+ * of all users cost one query per interval. The result is dropped, if the data was changed
+ * by the application (saves, deletes and jobs).
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+@Service
+public class StatisticsService {
+    private static final String STATISTICS_QUERY = "select " +
+            "(select count(*) from person), " +
+            "(select count(*) from role r join role_resource rr on rr.id = r.role_resource_id " +
+            "where rr.is_org_resource = true), " +
+            "(select count(*) from role), " +
+            "(select count(*) from aduser), " +
+            "(select count(*) from adgroup), " +
+            "(select count(*) from adgroup where is_admin_group = true), " +
+            "(select count(*) from aduser where password_expires = false)";
+    private final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeToLiveMillis;
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(DashboardStatistics statistics, long readAtMillis) {}
+
+    public StatisticsService(JdbcTemplate jdbcTemplate,
+                             @Value("${adroles.dashboard.cacheSeconds:30}") long cacheSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        timeToLiveMillis = Math.max(0, cacheSeconds) * 1000;
+    }
+
+    /**
+     * @return the numbers of the dashboard, all 0 if the numbers could not be read
+     */
+    public DashboardStatistics getDashboardStatistics() {
+        Snapshot currentSnapshot = snapshot;
+        long now = System.currentTimeMillis();
+        if (currentSnapshot != null && now - currentSnapshot.readAtMillis() < timeToLiveMillis) {
+            return currentSnapshot.statistics();
+        }
+        try {
+            DashboardStatistics statistics = jdbcTemplate.queryForObject(STATISTICS_QUERY,
+                    (resultSet, rowNumber) -> new DashboardStatistics(resultSet.getLong(1), resultSet.getLong(2),
+                            resultSet.getLong(3), resultSet.getLong(4), resultSet.getLong(5),
+                            resultSet.getLong(6), resultSet.getLong(7)));
+            snapshot = new Snapshot(statistics, now);
+            return statistics;
+        } catch (DataAccessException exception) {
+            logger.debug("The statistics for the dashboard could not be read.", exception);
+            return new DashboardStatistics(0, 0, 0, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Drop the kept numbers, the next call reads them again.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+}
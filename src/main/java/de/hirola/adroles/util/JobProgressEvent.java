@@ -0,0 +1,37 @@
+/*
+ * Copyright 2022 by Michael Schmidt, Hirola Consulting
+ * This software us licensed under the AGPL-3.0 or later.
+ *
+ * @author Michael Schmidt (Hirola)
+ * @since v0.1
+ */
+
+package de.hirola.adroles.util;
+
+import org.springframework.context.ApplicationEvent;
+
+public class JobProgressEvent extends ApplicationEvent {
+    private final String jobType;
+    private final double progress;
+
+    /**
+     * Create an event for the progress of a running job.
+     *
+     * @param source of the event
+     * @param jobType of the running job
+     * @param progress between 0 and 1, negative if the progress is unknown
+     */
+    public JobProgressEvent(Object source, String jobType, double progress) {
+        super(source);
+        this.jobType = jobType;
+        this.progress = progress;
+    }
+
+    public String getJobType() {
+        return jobType;
+    }
+
+    public double getProgress() {
+        return progress;
+    }
+}
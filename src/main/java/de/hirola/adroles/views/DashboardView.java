@@ -5,7 +5,7 @@ import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import de.hirola.adroles.Global;
-import de.hirola.adroles.data.entity.RoleResource;
+import de.hirola.adroles.data.projection.DashboardStatistics;
 import de.hirola.adroles.service.IdentityService;
 
 import javax.annotation.security.PermitAll;
@@ -24,38 +24,36 @@ public class DashboardView extends VerticalLayout {
     }
 
     private void addComponents() {
+        // all numbers with one query
+        DashboardStatistics statistics = identityService.getDashboardStatistics();
+
         TextField personsCountLabel = new TextField(getTranslation("persons.sum"));
         personsCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         personsCountLabel.setReadOnly(true);
-        personsCountLabel.setValue(String.valueOf(identityService.countPersons()));
+        personsCountLabel.setValue(String.valueOf(statistics.personCount()));
 
         TextField orgUnitsCountLabel = new TextField(getTranslation("org.sum"));
         orgUnitsCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         orgUnitsCountLabel.setReadOnly(true);
-        RoleResource roleResource = identityService.getRoleResource(Global.ROLE_RESOURCE.ORG_ROLE);
-        if (roleResource != null) {
-            orgUnitsCountLabel.setValue(String.valueOf(identityService.countRoles(roleResource)));
-        } else {
-            orgUnitsCountLabel.setValue(getTranslation("notDetermined"));
-        }
+        orgUnitsCountLabel.setValue(String.valueOf(statistics.orgRoleCount()));
 
         TextField rolesCountLabel = new TextField(getTranslation("role.sum"));
         rolesCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         rolesCountLabel.setReadOnly(true);
-        rolesCountLabel.setValue(String.valueOf(identityService.countRoles(null)));
+        rolesCountLabel.setValue(String.valueOf(statistics.roleCount()));
 
         TextField adUsersCountLabel = new TextField(getTranslation("adUsers.sum"));
         adUsersCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         adUsersCountLabel.setReadOnly(true);
-        adUsersCountLabel.setValue(String.valueOf(identityService.countADUsers()));
+        adUsersCountLabel.setValue(String.valueOf(statistics.adUserCount()));
 
         TextField adGroupsCountLabel = new TextField(getTranslation("adGroups.sum"));
         adGroupsCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         adGroupsCountLabel.setReadOnly(true);
-        adGroupsCountLabel.setValue(String.valueOf(identityService.countADGroups()));
+        adGroupsCountLabel.setValue(String.valueOf(statistics.adGroupCount()));
 
         // administrative groups
-        long countAdminGroups = identityService.countAdminGroups();
+        long countAdminGroups = statistics.adminGroupCount();
         TextField adminGroupCountLabel = new TextField(getTranslation("adAdminGroups.sum"));
         adminGroupCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         adminGroupCountLabel.setReadOnly(true);
@@ -66,7 +64,7 @@ public class DashboardView extends VerticalLayout {
         }
 
         // password never expires
-        long countPasswordNeverExpires = identityService.countPasswordNotExpires();
+        long countPasswordNeverExpires = statistics.passwordNeverExpiresCount();
         TextField passwordNeverExpiresCountLabel = new TextField(getTranslation("passwordNeverExpires.sum"));
         passwordNeverExpiresCountLabel.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
         passwordNeverExpiresCountLabel.setReadOnly(true);
@@ -9,6 +9,7 @@
 package de.hirola.adroles.views;
 
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.dialog.DialogVariant;
 import com.vaadin.flow.component.html.Div;
@@ -20,22 +21,52 @@ public final class ProgressModalDialog {
     private final Dialog dialog;
     private final ProgressBar progressBar;
     private final Div progressBarLabel, progressBarSubLabel;
+    private final Button cancelButton;
+    private Runnable cancelAction;
 
     public ProgressModalDialog(){
         dialog = new Dialog();
         progressBar = new ProgressBar();
         progressBarLabel = new Div();
         progressBarSubLabel = new Div();
+        cancelButton = new Button(UI.getCurrent().getTranslation("cancel"));
         buildProgressDialog();
     }
 
     public void open(String titleKey, String messageKey, String subMessageKey) {
+        open(titleKey, messageKey, subMessageKey, null);
+    }
+
+    /**
+     * Open the dialog with a cancel button.
+     *
+     * @param cancelAction called, if the user clicks the cancel button - the dialog is closed by the result of the job
+     */
+    public void open(String titleKey, String messageKey, String subMessageKey, Runnable cancelAction) {
+        this.cancelAction = cancelAction;
         dialog.setHeaderTitle(UI.getCurrent().getTranslation(titleKey));
         progressBarLabel.setText(UI.getCurrent().getTranslation(messageKey));
         progressBarSubLabel.setText(UI.getCurrent().getTranslation(subMessageKey));
+        progressBar.setIndeterminate(true);
+        cancelButton.setVisible(cancelAction != null);
+        cancelButton.setEnabled(true);
         dialog.open();
     }
 
+    /**
+     * Show the progress of the running job.
+     *
+     * @param progress between 0 and 1, negative if unknown
+     */
+    public void setProgress(double progress) {
+        if (progress < 0) {
+            progressBar.setIndeterminate(true);
+            return;
+        }
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(Math.min(1.0, progress));
+    }
+
     public void close() {
         dialog.close();
     }
@@ -47,5 +78,13 @@ public final class ProgressModalDialog {
         dialog.setModal(true);
         dialog.setResizable(true);
         dialog.add(progressBarLabel, progressBar, progressBarSubLabel);
+        cancelButton.addClickListener(event -> {
+            if (cancelAction != null) {
+                cancelButton.setEnabled(false);
+                cancelAction.run();
+            }
+        });
+        cancelButton.setVisible(false);
+        dialog.getFooter().add(cancelButton);
     }
 }
@@ -14,11 +14,14 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import de.hirola.adroles.Global;
 import de.hirola.adroles.data.entity.ADGroup;
+import de.hirola.adroles.data.projection.ADGroupListItem;
 import de.hirola.adroles.service.IdentityService;
+import de.hirola.adroles.util.JobProgressEvent;
 import de.hirola.adroles.util.ServiceEvent;
 import de.hirola.adroles.util.ServiceResult;
 import de.hirola.adroles.views.MainLayout;
@@ -42,11 +45,11 @@ import java.util.Locale;
 public class ADGroupListView extends VerticalLayout {
     private final Logger logger = LoggerFactory.getLogger(ADGroupListView.class);
     private final IdentityService identityService;
-    private final List<ADGroup> selectedADGroups = new ArrayList<>();
+    private final List<ADGroupListItem> selectedADGroups = new ArrayList<>();
     private ProgressModalDialog progressModalDialog;
     private ADGroupForm adGroupForm;
     private PersonAssignRoleForm assignRoleForm;
-    private final Grid<ADGroup> grid = new Grid<>(ADGroup.class, false);
+    private final Grid<ADGroupListItem> grid = new Grid<>(ADGroupListItem.class, false);
     private TextField filterTextField;
     private Button addADGroupButton, updateButton, deleteADGroupsButton;
 
@@ -79,6 +82,17 @@ public class ADGroupListView extends VerticalLayout {
         identityService.unregister(this);
     }
 
+    @Subscribe
+    public void onJobProgress(JobProgressEvent event) {
+        if (getUI().isPresent()) {
+            getUI().get().access(() -> {
+                if (progressModalDialog != null) {
+                    progressModalDialog.setProgress(event.getProgress());
+                }
+            });
+        }
+    }
+
     @Subscribe
     public void onServiceEvent(ServiceEvent event) {
         if (getUI().isPresent()) {
@@ -130,18 +144,28 @@ public class ADGroupListView extends VerticalLayout {
 
         grid.addClassNames("ad-group-grid");
         grid.setSizeFull();
-        grid.addColumn(ADGroup::getName).setHeader(getTranslation("name"))
+        grid.addColumn(ADGroupListItem::name).setHeader(getTranslation("name"))
                 .setKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setSortable(true)
+                .setSortProperty("name")
                 .setFooter(String.format(getTranslation("adGroups.sum") + ": %s", identityService.countADGroups()));
-        grid.addColumn(ADGroup::getDescription).setHeader(getTranslation("description"))
-                .setSortable(true);
+        grid.addColumn(ADGroupListItem::description).setHeader(getTranslation("description"))
+                .setSortProperty("description");
         grid.addColumn(adGroup -> adGroup.isAdminGroup() ? getTranslation("yes") : getTranslation("no"))
                 .setHeader(getTranslation("adminGroup"))
-                .setSortable(true);
+                .setSortProperty("isAdminGroup");
+        grid.addColumn(ADGroupListItem::memberCount).setHeader(getTranslation("adUsers.assigned"))
+                .setSortProperty("memberCount");
         grid.getColumns().forEach(col -> col.setAutoWidth(true));
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addItemClickListener(event -> editADGroup(event.getItem()));
+        grid.addItemClickListener(event -> {
+            // the list contains only the columns, load the group for the form
+            ADGroup adGroup = identityService.findADGroup(event.getItem().id());
+            if (adGroup == null) {
+                updateList();
+            } else {
+                editADGroup(adGroup);
+            }
+        });
         grid.addSelectionListener(selection -> {
             selectedADGroups.clear();
             if (selection.getAllSelectedItems().isEmpty()) {
@@ -187,8 +211,14 @@ public class ADGroupListView extends VerticalLayout {
             }
             progressModalDialog.open("update",
                     "import.running.message",
-                    "import.running.subMessage");
-            new Thread(identityService::updateGroupsFromAD).start();
+                    "import.running.subMessage",
+                    () -> identityService.cancelJob(Global.JOB_TYPE.UPDATE_GROUPS_FROM_AD));
+            ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.UPDATE_GROUPS_FROM_AD,
+                    identityService::updateGroupsFromAD);
+            if (!serviceResult.operationSuccessful) {
+                progressModalDialog.close();
+                NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+            }
         });
         dialog.open();
     }
@@ -225,7 +255,8 @@ public class ADGroupListView extends VerticalLayout {
         dialog.setRejectable(false);
         dialog.setConfirmText("Ok");
         dialog.addConfirmListener(clickEvent -> {
-            identityService.deleteADGroups(selectedADGroups);
+            identityService.deleteADGroups(identityService.findADGroups(
+                    selectedADGroups.stream().map(ADGroupListItem::id).toList()));
             updateList();
             selectedADGroups.clear();
             deleteADGroupsButton.setEnabled(false);
@@ -248,11 +279,14 @@ public class ADGroupListView extends VerticalLayout {
     }
 
     private void updateList() {
-        List<ADGroup> filteredADGroups = identityService.findAllADGroups(filterTextField.getValue());
-        grid.setItems(filteredADGroups);
+        String filter = filterTextField.getValue();
+        // the rows are loaded page by page from the database, the session holds only the visible rows
+        int count = (int) identityService.countADGroupListItems(filter);
+        grid.setItems(query -> identityService.findADGroupListItems(filter,
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(), query -> count);
         grid.deselectAll();
         grid.getColumnByKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setFooter(String.format(getTranslation("adGroups.sum") + ": %s", filteredADGroups.size()));
+                .setFooter(String.format(getTranslation("adGroups.sum") + ": %s", count));
     }
 
     private void closeADGroupForm() {
@@ -14,11 +14,14 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import de.hirola.adroles.Global;
 import de.hirola.adroles.data.entity.ADUser;
+import de.hirola.adroles.data.projection.ADUserListItem;
 import de.hirola.adroles.service.IdentityService;
+import de.hirola.adroles.util.JobProgressEvent;
 import de.hirola.adroles.util.ServiceEvent;
 import de.hirola.adroles.util.ServiceResult;
 import de.hirola.adroles.views.MainLayout;
@@ -42,11 +45,11 @@ import java.util.Locale;
 public class ADUserListView extends VerticalLayout {
     private final Logger logger = LoggerFactory.getLogger(ADUserListView.class);
     private final IdentityService identityService;
-    private final List<ADUser> selectedADUsers = new ArrayList<>();
+    private final List<ADUserListItem> selectedADUsers = new ArrayList<>();
     private ProgressModalDialog progressModalDialog;
     private ADUserForm adUserForm;
     private PersonAssignRoleForm assignRoleForm;
-    private final Grid<ADUser> grid = new Grid<>(ADUser.class, false);
+    private final Grid<ADUserListItem> grid = new Grid<>(ADUserListItem.class, false);
     private TextField filterTextField;
     private Button addADUserButton, updateButton, deleteADUsersButton;
 
@@ -78,6 +81,17 @@ public class ADUserListView extends VerticalLayout {
         identityService.unregister(this);
     }
 
+    @Subscribe
+    public void onJobProgress(JobProgressEvent event) {
+        if (getUI().isPresent()) {
+            getUI().get().access(() -> {
+                if (progressModalDialog != null) {
+                    progressModalDialog.setProgress(event.getProgress());
+                }
+            });
+        }
+    }
+
     @Subscribe
     public void onServiceEvent(ServiceEvent event) {
         if (getUI().isPresent()) {
@@ -129,22 +143,22 @@ public class ADUserListView extends VerticalLayout {
 
         grid.addClassNames("ad-user-grid");
         grid.setSizeFull();
-        grid.addColumn(ADUser::getLogonName).setHeader(getTranslation("logonName"))
+        grid.addColumn(ADUserListItem::logonName).setHeader(getTranslation("logonName"))
                 .setKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setSortable(true)
+                .setSortProperty("logonName")
                 .setFooter(String.format(getTranslation("adUsers.sum") + ": %s", identityService.countADUsers()));
-        grid.addColumn(adUser -> adUser.isEnabled() ? getTranslation("enabled") : getTranslation("disabled"))
+        grid.addColumn(adUser -> adUser.enabled() ? getTranslation("enabled") : getTranslation("disabled"))
                 .setHeader(getTranslation("status"))
-                .setSortable(true);
-        grid.addColumn(adUser -> adUser.isPasswordExpires() ? getTranslation("yes") : getTranslation("no"))
+                .setSortProperty("enabled");
+        grid.addColumn(adUser -> adUser.passwordExpires() ? getTranslation("yes") : getTranslation("no"))
                 .setHeader(getTranslation("passwordExpires"))
-                .setSortable(true);
+                .setSortProperty("passwordExpires");
         grid.addColumn(adUser -> adUser.isAdminAccount() ? getTranslation("yes") : getTranslation("no"))
                 .setHeader(getTranslation("adminAccount"))
-                .setSortable(true);
+                .setSortProperty("isAdminAccount");
         grid.addColumn(adUser -> adUser.isServiceAccount() ? getTranslation("yes") : getTranslation("no"))
                 .setHeader(getTranslation("serviceAccount"))
-                .setSortable(true);
+                .setSortProperty("isServiceAccount");
         grid.getColumns().forEach(col -> {
             String columnKey = col.getKey();
             if (columnKey != null) {
@@ -159,7 +173,15 @@ public class ADUserListView extends VerticalLayout {
             }
         });
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addItemClickListener(event -> editADUser(event.getItem()));
+        grid.addItemClickListener(event -> {
+            // the list contains only the columns, load the account for the form
+            ADUser adUser = identityService.findADUser(event.getItem().id());
+            if (adUser == null) {
+                updateList();
+            } else {
+                editADUser(adUser);
+            }
+        });
         grid.addSelectionListener(selection -> {
             selectedADUsers.clear();
             if (selection.getAllSelectedItems().isEmpty()) {
@@ -204,8 +226,14 @@ public class ADUserListView extends VerticalLayout {
             }
             progressModalDialog.open("update",
                     "import.running.message",
-                    "import.running.subMessage");
-            new Thread(identityService::updateUserFromAD).start();
+                    "import.running.subMessage",
+                    () -> identityService.cancelJob(Global.JOB_TYPE.UPDATE_USERS_FROM_AD));
+            ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.UPDATE_USERS_FROM_AD,
+                    identityService::updateUserFromAD);
+            if (!serviceResult.operationSuccessful) {
+                progressModalDialog.close();
+                NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+            }
             dialog.close();
         });
         dialog.open();
@@ -243,7 +271,8 @@ public class ADUserListView extends VerticalLayout {
         dialog.setRejectable(false);
         dialog.setConfirmText("Ok");
         dialog.addConfirmListener(clickEvent -> {
-            identityService.deleteADUsers(selectedADUsers);
+            identityService.deleteADUsers(identityService.findADUsers(
+                    selectedADUsers.stream().map(ADUserListItem::id).toList()));
             updateList();
             selectedADUsers.clear();
             deleteADUsersButton.setEnabled(false);
@@ -266,11 +295,14 @@ public class ADUserListView extends VerticalLayout {
     }
 
     private void updateList() {
-        List<ADUser> filteredADUsers = identityService.findAllADUsers(filterTextField.getValue());
-        grid.setItems(filteredADUsers);
+        String filter = filterTextField.getValue();
+        // the rows are loaded page by page from the database, the session holds only the visible rows
+        int count = (int) identityService.countADUserListItems(filter);
+        grid.setItems(query -> identityService.findADUserListItems(filter,
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(), query -> count);
         grid.deselectAll();
         grid.getColumnByKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setFooter(String.format(getTranslation("adUsers.sum") + ": %s", filteredADUsers.size()));
+                .setFooter(String.format(getTranslation("adUsers.sum") + ": %s", count));
     }
 
     private void closeADUserForm() {
@@ -88,7 +88,8 @@ public class EmployeeListView extends VerticalLayout {
             closeEmployeeForm();
         } else {
             enableComponents(false);
-            empoyeeForm.setPerson(person);
+            // the list is loaded without the relations
+            empoyeeForm.setPerson(identityService.findPersonWithAssignments(person));
             empoyeeForm.setVisible(true);
             addClassName("editing");
         }
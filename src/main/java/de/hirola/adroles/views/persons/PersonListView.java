@@ -10,8 +10,10 @@ import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import de.hirola.adroles.Global;
 import de.hirola.adroles.data.entity.Person;
+import de.hirola.adroles.data.projection.PersonListItem;
 import de.hirola.adroles.service.IdentityService;
 import de.hirola.adroles.util.ServiceResult;
+import de.hirola.adroles.util.JobProgressEvent;
 import de.hirola.adroles.util.ServiceEvent;
 import de.hirola.adroles.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
@@ -21,6 +23,7 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.PageTitle;
 import de.hirola.adroles.views.NotificationPopUp;
@@ -43,11 +46,11 @@ public class PersonListView extends VerticalLayout {
     private final Logger logger = LoggerFactory.getLogger(PersonListView.class);
     private final IdentityService identityService;
     private ProgressModalDialog progressModalDialog;
-    private final List<Person> selectedPersons = new ArrayList<>();
+    private final List<PersonListItem> selectedPersons = new ArrayList<>();
     private PersonForm personForm;
     private PersonAssignADUserForm assignADUserForm;
     private PersonAssignRoleForm assignRoleForm;
-    private final Grid<Person> grid = new Grid<>(Person.class, false);
+    private final Grid<PersonListItem> grid = new Grid<>(PersonListItem.class, false);
     private TextField filterTextField;
     private Button addPersonButton, updateButton, assignToRolesButton, deletePersonsButton;
 
@@ -79,6 +82,17 @@ public class PersonListView extends VerticalLayout {
         identityService.unregister(this);
     }
 
+    @Subscribe
+    public void onJobProgress(JobProgressEvent event) {
+        if (getUI().isPresent()) {
+            getUI().get().access(() -> {
+                if (progressModalDialog != null) {
+                    progressModalDialog.setProgress(event.getProgress());
+                }
+            });
+        }
+    }
+
     @Subscribe
     public void onServiceEvent(ServiceEvent event) {
         if (getUI().isPresent()) {
@@ -136,25 +150,33 @@ public class PersonListView extends VerticalLayout {
 
         grid.addClassNames("person-grid");
         grid.setSizeFull();
-        grid.addColumn(Person::getLastName).setHeader(getTranslation("lastname"))
+        grid.addColumn(PersonListItem::lastName).setHeader(getTranslation("lastname"))
                 .setKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setSortable(true)
+                .setSortProperty("lastName")
                 .setFooter(String.format(getTranslation("persons.sum") + ": %s", identityService.countPersons()));
-        grid.addColumn(Person::getFirstName).setHeader(getTranslation("firstname"))
-                .setSortable(true);
-        grid.addColumn(Person::getCentralAccountName)
+        grid.addColumn(PersonListItem::firstName).setHeader(getTranslation("firstname"))
+                .setSortProperty("firstName");
+        grid.addColumn(PersonListItem::centralAccountName)
                 .setHeader(getTranslation("centralAccountName"))
-                .setSortable(true);
-        grid.addColumn(Person::getDepartmentName).setHeader(getTranslation("department"))
-                .setSortable(true);
-        grid.addColumn(Person::getDescription).setHeader(getTranslation("description"))
-                .setSortable(true);
+                .setSortProperty("centralAccountName");
+        grid.addColumn(PersonListItem::departmentName).setHeader(getTranslation("department"))
+                .setSortProperty("departmentName");
+        grid.addColumn(PersonListItem::description).setHeader(getTranslation("description"))
+                .setSortProperty("description");
         grid.addColumn(person -> person.isEmployee() ? getTranslation("yes") : getTranslation("no"))
                 .setHeader(getTranslation("employee"))
-                .setSortable(true);
+                .setSortProperty("isEmployee");
         grid.getColumns().forEach(col -> col.setAutoWidth(true));
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addItemClickListener(event -> editPerson(event.getItem()));
+        grid.addItemClickListener(event -> {
+            // the list contains only the columns, load the person for the form
+            Person person = identityService.findPersonWithAssignments(event.getItem().id());
+            if (person == null) {
+                updateList();
+            } else {
+                editPerson(person);
+            }
+        });
         grid.addSelectionListener(selection -> {
             selectedPersons.clear();
             if (selection.getAllSelectedItems().isEmpty()) {
@@ -219,8 +241,14 @@ public class PersonListView extends VerticalLayout {
                 }
                 progressModalDialog.open("update",
                         "import.running.message",
-                        "import.running.subMessage");
-                new Thread(identityService::updatePersonsFromAD).start();
+                        "import.running.subMessage",
+                        () -> identityService.cancelJob(Global.JOB_TYPE.UPDATE_PERSONS_FROM_AD));
+                ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.UPDATE_PERSONS_FROM_AD,
+                        identityService::updatePersonsFromAD);
+                if (!serviceResult.operationSuccessful) {
+                    progressModalDialog.close();
+                    NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+                }
                 dialog.close();
             });
             dialog.open();
@@ -230,8 +258,14 @@ public class PersonListView extends VerticalLayout {
             }
             progressModalDialog.open("update",
                     "import.running.message",
-                    "import.running.subMessage");
-            new Thread(identityService::updatePersonsFromAD).start();
+                    "import.running.subMessage",
+                    () -> identityService.cancelJob(Global.JOB_TYPE.UPDATE_PERSONS_FROM_AD));
+            ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.UPDATE_PERSONS_FROM_AD,
+                    identityService::updatePersonsFromAD);
+            if (!serviceResult.operationSuccessful) {
+                progressModalDialog.close();
+                NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+            }
             dialog.close();
         }
     }
@@ -270,17 +304,24 @@ public class PersonListView extends VerticalLayout {
                 if (progressModalDialog == null) {
                     progressModalDialog = new ProgressModalDialog();
                 }
+                List<Integer> personIds = getSelectedPersonIds();
                 progressModalDialog.open("update",
                         "import.running.message",
-                        "import.running.subMessage");
-                new Thread(() -> identityService.assignPersonsToRoles(selectedPersons)).start();
+                        "import.running.subMessage",
+                        () -> identityService.cancelJob(Global.JOB_TYPE.ASSIGN_PERSONS_TO_ROLES));
+                ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.ASSIGN_PERSONS_TO_ROLES,
+                        job -> identityService.assignPersonsToRoles(personIds, job));
+                if (!serviceResult.operationSuccessful) {
+                    progressModalDialog.close();
+                    NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+                }
                 dialog.close();
             });
         }
     }
 
     private void updateEmployeeStatusOfSelectedPersons(boolean isEmployee) {
-        for (Person person: selectedPersons) {
+        for (Person person: identityService.findPersons(getSelectedPersonIds())) {
             person.setEmployee(isEmployee);
             if (!identityService.savePerson(person)) {
                 NotificationPopUp.show(NotificationPopUp.ERROR, "error.save");
@@ -321,7 +362,7 @@ public class PersonListView extends VerticalLayout {
         dialog.setRejectable(false);
         dialog.setConfirmText("Ok");
         dialog.addConfirmListener(clickEvent -> {
-            identityService.deletePersons(selectedPersons);
+            identityService.deletePersons(identityService.findPersons(getSelectedPersonIds()));
             updateList();
             selectedPersons.clear();
             deletePersonsButton.setEnabled(false);
@@ -354,11 +395,18 @@ public class PersonListView extends VerticalLayout {
     }
 
     private void updateList() {
-        List<Person> filteredPersons = identityService.findAllPersons(filterTextField.getValue());
-        grid.setItems(filteredPersons);
+        String filter = filterTextField.getValue();
+        // the rows are loaded page by page from the database, the session holds only the visible rows
+        int count = (int) identityService.countPersonListItems(filter);
+        grid.setItems(query -> identityService.findPersonListItems(filter,
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(), query -> count);
         grid.deselectAll();
         grid.getColumnByKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setFooter(String.format(getTranslation("persons.sum") + ": %s", filteredPersons.size()));
+                .setFooter(String.format(getTranslation("persons.sum") + ": %s", count));
+    }
+
+    private List<Integer> getSelectedPersonIds() {
+        return selectedPersons.stream().map(PersonListItem::id).toList();
     }
 
     private void closePersonForm() {
@@ -407,10 +455,10 @@ public class PersonListView extends VerticalLayout {
         }
     }
 
-    private static class PersonContextMenu extends GridContextMenu<Person> {
+    private static class PersonContextMenu extends GridContextMenu<PersonListItem> {
 
         private final PersonListView listView;
-        PersonContextMenu(Grid<Person> target, PersonListView listView) {
+        PersonContextMenu(Grid<PersonListItem> target, PersonListView listView) {
             super(target);
             this.listView = listView;
 
@@ -18,6 +18,7 @@ import de.hirola.adroles.Global;
 import de.hirola.adroles.data.entity.RoleResource;
 import de.hirola.adroles.data.entity.Role;
 import de.hirola.adroles.service.IdentityService;
+import de.hirola.adroles.util.JobProgressEvent;
 import de.hirola.adroles.util.ServiceEvent;
 import de.hirola.adroles.util.ServiceResult;
 import de.hirola.adroles.views.NotificationPopUp;
@@ -98,6 +99,17 @@ class ResourceListView extends VerticalLayout {
         identityService.unregister(this);
     }
 
+    @Subscribe
+    public void onJobProgress(JobProgressEvent event) {
+        if (getUI().isPresent()) {
+            getUI().get().access(() -> {
+                if (progressModalDialog != null) {
+                    progressModalDialog.setProgress(event.getProgress());
+                }
+            });
+        }
+    }
+
     @Subscribe
     public void onServiceEvent(ServiceEvent event) {
         if (getUI().isPresent()) {
@@ -248,7 +260,8 @@ class ResourceListView extends VerticalLayout {
         if (role == null) {
             closeRoleForm();
         } else {
-            roleForm.setRole(role);
+            // the list is loaded without the relations
+            roleForm.setRole(identityService.findRoleWithAssignments(role));
             enableComponents(false);
             roleForm.setVisible(true);
             addClassName("editing");
@@ -276,8 +289,14 @@ class ResourceListView extends VerticalLayout {
                 }
                 progressModalDialog.open("update",
                         "import.running.message",
-                        "import.running.subMessage");
-                new Thread(identityService::updateOrgRolesFromPersons).start();
+                        "import.running.subMessage",
+                        () -> identityService.cancelJob(Global.JOB_TYPE.UPDATE_ORG_ROLES_FROM_PERSONS));
+                ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.UPDATE_ORG_ROLES_FROM_PERSONS,
+                        identityService::updateOrgRolesFromPersons);
+                if (!serviceResult.operationSuccessful) {
+                    progressModalDialog.close();
+                    NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+                }
                 dialog.close();
             });
             dialog.open();
@@ -16,6 +16,7 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
@@ -23,7 +24,9 @@ import com.vaadin.flow.router.Route;
 import de.hirola.adroles.Global;
 import de.hirola.adroles.data.entity.Role;
 import de.hirola.adroles.data.entity.RoleResource;
+import de.hirola.adroles.data.projection.RoleListItem;
 import de.hirola.adroles.service.IdentityService;
+import de.hirola.adroles.util.JobProgressEvent;
 import de.hirola.adroles.util.ServiceEvent;
 import de.hirola.adroles.util.ServiceResult;
 import de.hirola.adroles.views.MainLayout;
@@ -52,8 +55,8 @@ public class RolesListView extends VerticalLayout {
     private RoleAssignPersonForm assignPersonForm;
     private RoleAssignADUserForm assignADUserForm;
     private RoleAssignADGroupForm assignADGroupForm;
-    private final List<Role> selectedRoles = new ArrayList<>();
-    private final Grid<Role> grid = new Grid<>(Role.class, false);
+    private final List<RoleListItem> selectedRoles = new ArrayList<>();
+    private final Grid<RoleListItem> grid = new Grid<>(RoleListItem.class, false);
     private TextField filterTextField;
     private final IdentityService identityService;
 
@@ -94,6 +97,17 @@ public class RolesListView extends VerticalLayout {
         identityService.unregister(this);
     }
 
+    @Subscribe
+    public void onJobProgress(JobProgressEvent event) {
+        if (getUI().isPresent()) {
+            getUI().get().access(() -> {
+                if (progressModalDialog != null) {
+                    progressModalDialog.setProgress(event.getProgress());
+                }
+            });
+        }
+    }
+
     @Subscribe
     public void onServiceEvent(ServiceEvent event) {
         if (getUI().isPresent()) {
@@ -153,49 +167,45 @@ public class RolesListView extends VerticalLayout {
 
         grid.addClassNames("roles-grid");
         grid.setSizeFull();
-        grid.addColumn(new ComponentRenderer<>(role -> {
-                    RoleResource roleResource = role.getRoleResource();
-                    if (roleResource != null) {
-                        if (roleResource.isOrgResource()) {
-                            return VaadinIcon.OFFICE.create();
-                        } else if (roleResource.isProjectResource()) {
-                                return VaadinIcon.CALENDAR_BRIEFCASE.create();
-                        } else if (roleResource.isEmailResource()) {
-                            return VaadinIcon.MAILBOX.create();
-                        } else if (roleResource.isFileShareResource()) {
-                            return VaadinIcon.FOLDER.create();
-                        } else {
-                            return VaadinIcon.CONNECT.create();
-                        }
-                    }
-                    return VaadinIcon.CUBE.create();
+        grid.addColumn(new ComponentRenderer<>(role -> switch (role.roleResourceType()) {
+                    case Global.ROLE_RESOURCE.ORG_ROLE -> VaadinIcon.OFFICE.create();
+                    case Global.ROLE_RESOURCE.PROJECT_ROLE -> VaadinIcon.CALENDAR_BRIEFCASE.create();
+                    case Global.ROLE_RESOURCE.EMAIL_RESOURCE_ROLE -> VaadinIcon.MAILBOX.create();
+                    case Global.ROLE_RESOURCE.FILE_SHARE_ROLE -> VaadinIcon.FOLDER.create();
+                    case Global.ROLE_RESOURCE.DEFAULT_ROLE -> VaadinIcon.CONNECT.create();
+                    default -> VaadinIcon.CUBE.create(); // without resource
                 }), "roleResource")
                 .setHeader(getTranslation("roleResource"))
                 .setWidth(Global.Component.IMAGE_COLUMN_WIDTH)
                 .setSortable(true)
-                .setSortOrderProvider(direction -> Stream.of(new QuerySortOrder("roleResource", direction)))
-                .setComparator((role1, role2) -> {
-                   RoleResource roleResource1 = role1.getRoleResource();
-                   RoleResource roleResource2 = role2.getRoleResource();
-                    return roleResource1.compareTo(roleResource2);
-                });
-        grid.addColumn(Role::getName).setHeader(getTranslation("name"))
-                .setSortable(true)
+                .setSortOrderProvider(direction -> Stream.of(new QuerySortOrder("roleResource", direction)));
+        grid.addColumn(RoleListItem::name).setHeader(getTranslation("name"))
+                .setSortProperty("name")
                 .setKey(Global.Component.FOOTER_COLUMN_KEY)
                 .setFooter(String.format(getTranslation("role.sum") + ": %s", identityService.countRoles(null)));
-        grid.addColumn(Role::getDescription).setHeader(getTranslation("description"))
+        grid.addColumn(RoleListItem::description).setHeader(getTranslation("description"))
                 .setWidth(Global.Component.DEFAULT_COLUMN_WIDTH)
-                .setSortable(true);
+                .setSortProperty("description");
         grid.addColumn(role -> role.isAdminRole() ? getTranslation("yes") : getTranslation("no"))
                 .setHeader(getTranslation("adminRole"))
-                .setSortable(true);
+                .setSortProperty("isAdminRole");
+        grid.addColumn(RoleListItem::personCount).setHeader(getTranslation("persons.assigned"))
+                .setSortProperty("personCount");
         grid.getColumns().forEach(col -> {
             if (col.getWidth() == null) {
                 col.setAutoWidth(true);
             }
         });
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addItemClickListener(event -> editRole(event.getItem()));
+        grid.addItemClickListener(event -> {
+            // the list contains only the columns, load the role for the form
+            Role role = identityService.findRoleWithAssignments(event.getItem().id());
+            if (role == null) {
+                updateList();
+            } else {
+                editRole(role);
+            }
+        });
         grid.addSelectionListener(selection -> {
             selectedRoles.clear();
             if (selection.getAllSelectedItems().isEmpty()) {
@@ -268,8 +278,14 @@ public class RolesListView extends VerticalLayout {
             }
             progressModalDialog.open("update",
                     "import.running.message",
-                    "import.running.subMessage");
-            new Thread(identityService::updateRolesFromGroups).start();
+                    "import.running.subMessage",
+                    () -> identityService.cancelJob(Global.JOB_TYPE.UPDATE_ROLES_FROM_GROUPS));
+            ServiceResult serviceResult = identityService.submitJob(Global.JOB_TYPE.UPDATE_ROLES_FROM_GROUPS,
+                    identityService::updateRolesFromGroups);
+            if (!serviceResult.operationSuccessful) {
+                progressModalDialog.close();
+                NotificationPopUp.show(NotificationPopUp.ERROR, serviceResult.resultMessage);
+            }
             dialog.close();
         });
         dialog.open();
@@ -311,7 +327,7 @@ public class RolesListView extends VerticalLayout {
         dialog.setRejectable(false);
         dialog.setConfirmText("Ok");
         dialog.addConfirmListener(clickEvent -> {
-            identityService.deleteRoles(selectedRoles);
+            identityService.deleteRoles(identityService.findRoles(getSelectedRoleIds()));
             updateList();
             selectedRoles.clear();
             deleteRolesButton.setEnabled(false);
@@ -375,11 +391,14 @@ public class RolesListView extends VerticalLayout {
     }
 
     private void updateList() {
-        List<Role> filteredRoles = identityService.findAllRoles(filterTextField.getValue(), null);
-        grid.setItems(filteredRoles);
+        String filter = filterTextField.getValue();
+        // the rows are loaded page by page from the database, the session holds only the visible rows
+        int count = (int) identityService.countRoleListItems(filter);
+        grid.setItems(query -> identityService.findRoleListItems(filter,
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(), query -> count);
         grid.deselectAll();
         grid.getColumnByKey(Global.Component.FOOTER_COLUMN_KEY)
-                .setFooter(String.format(getTranslation("role.sum") + ": %s", filteredRoles.size()));
+                .setFooter(String.format(getTranslation("role.sum") + ": %s", count));
     }
 
     private void loadAvailableRoleResources() {
@@ -401,7 +420,7 @@ public class RolesListView extends VerticalLayout {
         if (!selectedRoles.isEmpty()) {
             RoleResource roleResource = identityService.getRoleResource(type);
             if (roleResource != null) {
-                for (Role role : selectedRoles) {
+                for (Role role : identityService.findRoles(getSelectedRoleIds())) {
                     role.setRoleResource(roleResource);
                     if (!identityService.saveRole(role)) {
                         NotificationPopUp.show(NotificationPopUp.ERROR,
@@ -418,6 +437,10 @@ public class RolesListView extends VerticalLayout {
         updateList();
     }
 
+    private List<Integer> getSelectedRoleIds() {
+        return selectedRoles.stream().map(RoleListItem::id).toList();
+    }
+
     private void closeRoleForm() {
         roleForm.setRole(null);
         enableComponents(true);
@@ -465,10 +488,10 @@ public class RolesListView extends VerticalLayout {
         }
     }
 
-    private static class RoleContextMenu extends GridContextMenu<Role> {
+    private static class RoleContextMenu extends GridContextMenu<RoleListItem> {
 
         private final RolesListView listView;
-        RoleContextMenu(Grid<Role> target, RolesListView listView) {
+        RoleContextMenu(Grid<RoleListItem> target, RolesListView listView) {
             super(target);
             this.listView = listView;
 
@@ -14,8 +14,10 @@ import com.vaadin.flow.data.binder.Binder;
 import com.vaadin.flow.data.binder.ValidationException;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import org.springframework.scheduling.support.CronExpression;
 import de.hirola.adroles.Global;
 import de.hirola.adroles.data.entity.ActiveDirectory;
+import de.hirola.adroles.service.DirectorySyncScheduler;
 import de.hirola.adroles.service.IdentityService;
 import de.hirola.adroles.util.ServiceResult;
 import de.hirola.adroles.views.MainLayout;
@@ -34,11 +36,13 @@ public class ConnectionSettingsTabView extends VerticalLayout implements Compone
     private final Binder<ActiveDirectory> activeDirectoryBinder = new BeanValidationBinder<>(ActiveDirectory.class);
     private final ActiveDirectory activeDirectory; //TODO: in v.0.1 only 1 DC is possible
     private final IdentityService identityService;
+    private final DirectorySyncScheduler directorySyncScheduler;
     private Button saveButton;
     private Button verifyButton;
 
-    public ConnectionSettingsTabView(IdentityService identityService) {
+    public ConnectionSettingsTabView(IdentityService identityService, DirectorySyncScheduler directorySyncScheduler) {
         this.identityService = identityService;
+        this.directorySyncScheduler = directorySyncScheduler;
         // load the objects from backend
         activeDirectory = identityService.getActiveDirectory();
         activeDirectoryBinder.setBean(activeDirectory);
@@ -105,6 +109,28 @@ public class ConnectionSettingsTabView extends VerticalLayout implements Compone
                 .bind(ActiveDirectory::isReadOnly, ActiveDirectory::setReadOnly);
         add(isReadOnly);
 
+        TextField syncCronTextField = new TextField(getTranslation("domain.sync.cron"));
+        syncCronTextField.setPlaceholder(getTranslation("domain.sync.cron.placeholder"));
+        syncCronTextField.setHelperText(getTranslation("domain.sync.cron.helperText"));
+        syncCronTextField.setWidth(Global.Component.DEFAULT_TEXT_FIELD_WIDTH);
+        activeDirectoryBinder
+                .forField(syncCronTextField)
+                .withNullRepresentation("")
+                .withValidator(cron -> cron == null || cron.isBlank() || CronExpression.isValidExpression(cron),
+                        getTranslation("error.input.cron"))
+                .bind(ActiveDirectory::getSyncCron, ActiveDirectory::setSyncCron);
+        add(syncCronTextField);
+
+        NumberField syncJitterNumberField = new NumberField(getTranslation("domain.sync.jitter"));
+        syncJitterNumberField.setMin(0);
+        activeDirectoryBinder
+                .forField(syncJitterNumberField)
+                .bind(activeDirectory -> (double) activeDirectory.getSyncMaxJitterMinutes(),
+                        // an empty field means no jitter
+                        (activeDirectory, jitter) ->
+                                activeDirectory.setSyncMaxJitterMinutes(jitter == null ? 0 : jitter.intValue()));
+        add(syncJitterNumberField);
+
         saveButton = new Button(getTranslation("save"));
         saveButton.setWidth(Global.Component.DEFAULT_BUTTON_WIDTH);
         saveButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
@@ -125,6 +151,7 @@ public class ConnectionSettingsTabView extends VerticalLayout implements Compone
                 // update form object from component values
                 activeDirectoryBinder.writeBean(activeDirectory);
                 identityService.saveActiveDirectory(activeDirectory);
+                directorySyncScheduler.reschedule();
                 NotificationPopUp.show(NotificationPopUp.INFO, getTranslation("data.saved"));
             } catch (ValidationException exception) {
                 NotificationPopUp.show(NotificationPopUp.ERROR, getTranslation("error.save"));
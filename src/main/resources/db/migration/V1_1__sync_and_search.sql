@@ -0,0 +1,56 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- The tables and columns added after the schema of version 1: the state of the delta sync
+-- and the sync schedule, the history of the background jobs, the imported memberships
+-- and nesting of the AD groups and the search texts of the lists.
+-- Runs on new and on baselined databases.
+
+alter table active_directory add column user_syncusn bigint default 0 not null;
+alter table active_directory add column group_syncusn bigint default 0 not null;
+alter table active_directory add column sync_cron varchar(255);
+alter table active_directory add column sync_max_jitter_minutes integer default 0 not null;
+
+create table job_history (
+    id integer not null,
+    job_type varchar(255),
+    state integer not null,
+    started_by varchar(255),
+    queued_at timestamp,
+    started_at timestamp,
+    finished_at timestamp,
+    result_message varchar(255),
+    primary key (id)
+);
+
+-- filled by the application on startup
+alter table person add column search_text varchar(2048);
+alter table aduser add column search_text varchar(2048);
+alter table adgroup add column search_text varchar(2048);
+alter table role add column search_text varchar(2048);
+
+create table adgroup_member (
+    adgroup_id integer not null,
+    aduser_id integer not null,
+    primary key (adgroup_id, aduser_id),
+    constraint fk_adgroup_member_adgroup foreign key (adgroup_id) references adgroup (id),
+    constraint fk_adgroup_member_aduser foreign key (aduser_id) references aduser (id)
+);
+
+create table adgroup_nesting (
+    adgroup_id integer not null,
+    member_adgroup_id integer not null,
+    primary key (adgroup_id, member_adgroup_id),
+    constraint fk_adgroup_nesting_adgroup foreign key (adgroup_id) references adgroup (id),
+    constraint fk_adgroup_nesting_member foreign key (member_adgroup_id) references adgroup (id)
+);
+
+create table adgroup_closure (
+    adgroup_id integer not null,
+    nested_adgroup_id integer not null,
+    primary key (adgroup_id, nested_adgroup_id),
+    constraint fk_adgroup_closure_adgroup foreign key (adgroup_id) references adgroup (id),
+    constraint fk_adgroup_closure_nested foreign key (nested_adgroup_id) references adgroup (id)
+);
+
+create index idx_adgroup_closure_nested on adgroup_closure (nested_adgroup_id);
@@ -0,0 +1,139 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- The tables of the entities, as created by hibernate (ddl-auto=update) before the migrations.
+-- Existing databases are baselined with this version, so it must not contain later changes.
+
+create sequence hibernate_sequence start with 1 increment by 1;
+
+create table active_directory (
+    id integer not null,
+    domain_name varchar(255),
+    ip_address varchar(255),
+    port double precision not null,
+    use_secure_connection boolean not null,
+    connection_user_name varchar(255),
+    connection_password varchar(255),
+    is_read_only boolean not null,
+    primary key (id)
+);
+
+create table dbconfig (
+    id integer not null,
+    name varchar(255),
+    jdbc_driver_name varchar(255),
+    jdbc_url varchar(255),
+    username varchar(255),
+    password varchar(255),
+    primary key (id)
+);
+
+create table users (
+    id integer not null,
+    login_name varchar(255),
+    password varchar(255),
+    enabled boolean not null,
+    primary key (id)
+);
+
+create table authorities (
+    id integer not null,
+    login_name varchar(255),
+    authority varchar(255),
+    primary key (id)
+);
+
+create table role_resource (
+    id integer not null,
+    name varchar(255),
+    description varchar(255),
+    view_class_name varchar(255),
+    add_resource_translation_key varchar(255),
+    delete_resources_translation_key varchar(255),
+    is_org_resource boolean not null,
+    is_project_resource boolean not null,
+    is_file_share_resource boolean not null,
+    is_email_resource boolean not null,
+    primary key (id)
+);
+
+create table person (
+    id integer not null,
+    central_account_name varchar(255),
+    last_name varchar(255),
+    first_name varchar(255),
+    email_address varchar(255),
+    phone_number varchar(255),
+    mobile_phone_number varchar(255),
+    department_name varchar(255),
+    description varchar(255),
+    entry_date date,
+    exit_date date,
+    is_employee boolean not null,
+    primary key (id)
+);
+
+create table aduser (
+    id integer not null,
+    logon_name varchar(255),
+    distinguished_name varchar(255),
+    objectsid varchar(255),
+    enabled boolean not null,
+    password_expires boolean not null,
+    is_role_managed boolean not null,
+    is_admin_account boolean not null,
+    is_service_account boolean not null,
+    person_id integer,
+    primary key (id),
+    constraint fk_aduser_person foreign key (person_id) references person (id)
+);
+
+create table adgroup (
+    id integer not null,
+    name varchar(255),
+    distinguished_name varchar(255),
+    objectsid varchar(255),
+    description varchar(255),
+    group_area integer not null,
+    group_type integer not null,
+    is_admin_group boolean not null,
+    primary key (id)
+);
+
+create table role (
+    id integer not null,
+    name varchar(255),
+    description varchar(255),
+    is_admin_role boolean not null,
+    role_resource_id integer,
+    responsible_id integer,
+    second_responsible_id integer,
+    primary key (id),
+    constraint fk_role_role_resource foreign key (role_resource_id) references role_resource (id),
+    constraint fk_role_responsible foreign key (responsible_id) references person (id),
+    constraint fk_role_second_responsible foreign key (second_responsible_id) references person (id)
+);
+
+create table role_adgroup (
+    role_id integer not null,
+    adgroup_id integer not null,
+    primary key (role_id, adgroup_id),
+    constraint fk_role_adgroup_role foreign key (role_id) references role (id),
+    constraint fk_role_adgroup_adgroup foreign key (adgroup_id) references adgroup (id)
+);
+
+create table role_person (
+    role_id integer not null,
+    person_id integer not null,
+    primary key (role_id, person_id),
+    constraint fk_role_person_role foreign key (role_id) references role (id),
+    constraint fk_role_person_person foreign key (person_id) references person (id)
+);
+
+create table role_aduser (
+    role_id integer not null,
+    aduser_id integer not null,
+    primary key (role_id, aduser_id),
+    constraint fk_role_aduser_role foreign key (role_id) references role (id),
+    constraint fk_role_aduser_aduser foreign key (aduser_id) references aduser (id)
+);
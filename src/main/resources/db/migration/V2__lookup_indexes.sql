@@ -0,0 +1,28 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- Indexes for the lookups of the imports and assignments.
+-- The SID of an account or group never changes and is unique in the directory.
+-- The logon name (sAMAccountName) is not unique in the table: accounts removed from the directory
+-- may be kept (e.g. when the deleted objects could not be read) and their names can be reused.
+
+create unique index uk_aduser_objectsid on aduser (objectsid);
+create index idx_aduser_logon_name on aduser (logon_name);
+create index idx_aduser_person on aduser (person_id);
+
+create unique index uk_adgroup_objectsid on adgroup (objectsid);
+create index idx_adgroup_name on adgroup (name);
+
+create index idx_role_name on role (name);
+create index idx_role_role_resource on role (role_resource_id);
+
+create index idx_person_department_name on person (department_name);
+
+-- the primary keys of the join tables start with the owning side
+create index idx_adgroup_member_aduser on adgroup_member (aduser_id);
+create index idx_adgroup_nesting_member on adgroup_nesting (member_adgroup_id);
+create index idx_role_adgroup_adgroup on role_adgroup (adgroup_id);
+create index idx_role_person_person on role_person (person_id);
+create index idx_role_aduser_aduser on role_aduser (aduser_id);
+
+create index idx_job_history_state on job_history (state);
@@ -0,0 +1,7 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- The highest id of the last committed chunk of a job.
+-- A cancelled or failed job continues after this id on the next run.
+
+alter table job_history add column checkpoint_id integer;
@@ -0,0 +1,16 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- The rules to classify AD groups (admin group, role resource of the role).
+-- The default rules are created by the application, if the table is empty.
+
+create table classification_rule (
+    id integer not null,
+    rule_type integer not null,
+    pattern varchar(255),
+    target integer not null,
+    priority integer not null,
+    primary key (id)
+);
+
+create sequence classification_rule_seq start with ${idAllocationSize} increment by ${idAllocationSize};
@@ -0,0 +1,22 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- The effective AD groups of the persons (person -> role -> AD group),
+-- derived from role_person and role_adgroup and kept up to date by the application.
+-- One row for every role granting the group, so the removal of one role keeps the others.
+
+create table person_entitlement (
+    person_id integer not null,
+    role_id integer not null,
+    adgroup_id integer not null,
+    primary key (person_id, role_id, adgroup_id),
+    constraint fk_person_entitlement_person foreign key (person_id) references person (id),
+    constraint fk_person_entitlement_role foreign key (role_id) references role (id),
+    constraint fk_person_entitlement_adgroup foreign key (adgroup_id) references adgroup (id)
+);
+create index idx_person_entitlement_role on person_entitlement (role_id);
+create index idx_person_entitlement_adgroup on person_entitlement (adgroup_id);
+
+insert into person_entitlement (person_id, role_id, adgroup_id)
+    select rp.person_id, rp.role_id, ra.adgroup_id
+    from role_person rp join role_adgroup ra on ra.role_id = rp.role_id;
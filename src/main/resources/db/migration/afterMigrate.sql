@@ -0,0 +1,17 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- Runs after every migration: the increment of the id sequences must be the allocation size
+-- of the id generator (adroles.ids.allocationSize), otherwise hibernate refuses to start.
+
+alter sequence active_directory_seq increment by ${idAllocationSize};
+alter sequence dbconfig_seq increment by ${idAllocationSize};
+alter sequence users_seq increment by ${idAllocationSize};
+alter sequence authorities_seq increment by ${idAllocationSize};
+alter sequence job_history_seq increment by ${idAllocationSize};
+alter sequence role_resource_seq increment by ${idAllocationSize};
+alter sequence person_seq increment by ${idAllocationSize};
+alter sequence aduser_seq increment by ${idAllocationSize};
+alter sequence adgroup_seq increment by ${idAllocationSize};
+alter sequence role_seq increment by ${idAllocationSize};
+alter sequence classification_rule_seq increment by ${idAllocationSize};
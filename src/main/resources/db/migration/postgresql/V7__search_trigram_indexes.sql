@@ -0,0 +1,15 @@
+-- Copyright 2022 by Michael Schmidt, Hirola Consulting
+-- This software us licensed under the AGPL-3.0 or later.
+--
+-- PostgreSQL only (location db/migration/{vendor}): trigram indexes on the search columns,
+-- so a search for a part of a value (like '%term%') does not read the whole table.
+-- The extension pg_trgm must be installed by a user with the privilege to create extensions,
+-- if the user of the application is not allowed to.
+-- The indexes may exist already, they were created at startup by an earlier version.
+
+create extension if not exists pg_trgm;
+
+create index if not exists person_search_text_trgm on person using gin (search_text gin_trgm_ops);
+create index if not exists role_search_text_trgm on role using gin (search_text gin_trgm_ops);
+create index if not exists aduser_search_text_trgm on aduser using gin (search_text gin_trgm_ops);
+create index if not exists adgroup_search_text_trgm on adgroup using gin (search_text gin_trgm_ops);